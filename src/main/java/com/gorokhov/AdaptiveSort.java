@@ -0,0 +1,424 @@
+package com.gorokhov;
+
+import java.util.*;
+
+/**
+ * <p>Chooses a {@link SortEngine} for the data of a list and implements all engines except
+ * {@link SortEngine#QUICK}, which is the quick sort of {@link CustomArrayList}. It also provides
+ * the heapsort that both quick sorts switch to when their recursion gets too deep.</p>
+ *
+ * <p>The choice is made by a few cheap checks, in this order:</p>
+ * <ul>
+ *  <li>a list of at most {@code INSERTION_SORT_THRESHOLD} elements is sorted by insertion sort;</li>
+ *  <li>a list made of at most {@code MAX_RUN_COUNT} ascending or strictly descending runs is sorted
+ *      by merging the runs. The runs are counted from the beginning of the list, and counting stops
+ *      as soon as there are too many of them, so a random list is rejected after a few elements;</li>
+ *  <li>an {@link Integer} list in natural ordering whose values span a range no larger than its size
+ *      is sorted by counting sort. The scan stops as soon as an element is not an {@code Integer}
+ *      or the range becomes too large;</li>
+ *  <li>a list in which a sample of {@code SAMPLE_SIZE} evenly spaced elements contains at least
+ *      {@code SAMPLE_SIZE / 4} duplicates is sorted by three-way quick sort;</li>
+ *  <li>any other list is sorted by quick sort.</li>
+ * </ul>
+ *
+ * @author  Dmitrii Gorokhov
+ */
+final class AdaptiveSort {
+
+    /**
+     * Lists of at most this size are sorted by insertion sort. Three-way quick sort also
+     * switches to insertion sort for parts of this size.
+     */
+    static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /**
+     * Lists of at most this number of runs are sorted by merging the runs.
+     */
+    static final int MAX_RUN_COUNT = 64;
+
+    /**
+     * Number of elements sampled to estimate the share of duplicates.
+     */
+    static final int SAMPLE_SIZE = 64;
+
+    /**
+     * Compares elements by their {@linkplain Comparable natural ordering}.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Comparator NATURAL_ORDER = (a, b) -> ((Comparable) a).compareTo(b);
+
+    private AdaptiveSort() {
+    }
+
+    /**
+     * Chooses the sorting algorithm for the first {@code size} elements of the {@code array}.
+     *
+     * @param   array the array to be sorted
+     * @param   size the number of elements to be sorted
+     * @param   comparator the comparator to determine the order of the array. A {@code null}
+     *          value indicates that the elements' {@linkplain Comparable natural ordering}
+     *          should be used.
+     * @return  the sorting algorithm
+     * @throws  ClassCastException if the array contains elements that are not
+     *          <i>mutually comparable</i>
+     */
+    @SuppressWarnings("rawtypes")
+    static SortEngine choose(Object[] array, int size, Comparator comparator) {
+        if (size <= INSERTION_SORT_THRESHOLD)
+            return SortEngine.INSERTION;
+        Comparator c = comparator != null ? comparator : NATURAL_ORDER;
+        if (countRuns(array, size, c) <= MAX_RUN_COUNT)
+            return SortEngine.RUN_MERGE;
+        if (comparator == null && hasSmallIntegerRange(array, size))
+            return SortEngine.COUNTING;
+        if (hasManyDuplicates(array, size, c))
+            return SortEngine.THREE_WAY_QUICK;
+        return SortEngine.QUICK;
+    }
+
+    /**
+     * Sorts the first {@code size} elements of the {@code array} with the specified engine.
+     *
+     * @param   engine the sorting algorithm, any but {@link SortEngine#QUICK}
+     * @param   array the array to be sorted
+     * @param   size the number of elements to be sorted
+     * @param   comparator the comparator to determine the order of the array. A {@code null}
+     *          value indicates that the elements' {@linkplain Comparable natural ordering}
+     *          should be used.
+     * @throws  ClassCastException if the array contains elements that are not
+     *          <i>mutually comparable</i>
+     */
+    @SuppressWarnings("rawtypes")
+    static void sort(SortEngine engine, Object[] array, int size, Comparator comparator) {
+        Comparator c = comparator != null ? comparator : NATURAL_ORDER;
+        switch (engine) {
+            case INSERTION -> insertionSort(array, 0, size - 1, c);
+            case RUN_MERGE -> mergeRuns(array, size, c);
+            case COUNTING -> countingSort(array, size);
+            case THREE_WAY_QUICK -> threeWayQuickSort(array, 0, size - 1, c, depthLimit(size));
+            default -> throw new IllegalArgumentException("Unsupported engine: " + engine);
+        }
+    }
+
+    /**
+     * Returns the recursion depth after which a quick sort of {@code size} elements switches
+     * to heapsort: twice the depth of a quick sort that always splits evenly.
+     *
+     * @param   size the number of elements to be sorted
+     * @return  the depth limit, {@code 2*floor(log2 size)}
+     */
+    static int depthLimit(int size) {
+        return size > 0 ? 2 * (31 - Integer.numberOfLeadingZeros(size)) : 0;
+    }
+
+    /**
+     * Sorts {@code array[first..last]} by heapsort, which takes O(n*log n) comparisons
+     * for any input.
+     *
+     * @param   array the array to be sorted
+     * @param   first the first index of array
+     * @param   last the last index of array
+     * @param   comparator the comparator to determine the order of the array. A {@code null}
+     *          value indicates that the elements' {@linkplain Comparable natural ordering}
+     *          should be used.
+     * @throws  ClassCastException if the array contains elements that are not
+     *          <i>mutually comparable</i>
+     */
+    @SuppressWarnings("rawtypes")
+    static void heapSort(Object[] array, int first, int last, Comparator comparator) {
+        Comparator c = comparator != null ? comparator : NATURAL_ORDER;
+        int size = last - first + 1;
+        for (int i = size / 2 - 1; i >= 0; i--)
+            siftDown(array, first, i, size, c);
+        for (int end = size - 1; end > 0; end--) {
+            swap(array, first, first + end);
+            siftDown(array, first, 0, end, c);
+        }
+    }
+
+    /**
+     * Moves the element at position {@code i} of the heap {@code array[first..first + size)} down
+     * until it is not less than its children.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void siftDown(Object[] array, int first, int i, int size, Comparator c) {
+        Object element = array[first + i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && c.compare(array[first + child + 1], array[first + child]) > 0)
+                child++;
+            if (c.compare(element, array[first + child]) >= 0)
+                break;
+            array[first + i] = array[first + child];
+            i = child;
+        }
+        array[first + i] = element;
+    }
+
+    /**
+     * Counts the runs of the first {@code size} elements of the {@code array}. A run is a sequence
+     * of elements that is either non-descending or strictly descending.
+     *
+     * @return the number of runs, or {@code MAX_RUN_COUNT + 1} if there are more than
+     *         {@code MAX_RUN_COUNT} runs
+     */
+    @SuppressWarnings("rawtypes")
+    private static int countRuns(Object[] array, int size, Comparator c) {
+        int runs = 0;
+        int i = 0;
+        while (i < size) {
+            if (++runs > MAX_RUN_COUNT)
+                return runs;
+            i = runEnd(array, i, size, c);
+        }
+        return runs;
+    }
+
+    /**
+     * Returns the index after the end of the run that starts at {@code start}.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int runEnd(Object[] array, int start, int size, Comparator c) {
+        int i = start + 1;
+        if (i == size)
+            return i;
+        if (c.compare(array[i], array[start]) < 0) {
+            while (i + 1 < size && c.compare(array[i + 1], array[i]) < 0)
+                i++;
+        } else {
+            while (i + 1 < size && c.compare(array[i + 1], array[i]) >= 0)
+                i++;
+        }
+        return i + 1;
+    }
+
+    /**
+     * Checks whether all elements are {@link Integer} and their values span a range no larger
+     * than {@code size}.
+     */
+    private static boolean hasSmallIntegerRange(Object[] array, int size) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            if (!(array[i] instanceof Integer value))
+                return false;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            if ((long) max - min >= size)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a sample of evenly spaced elements contains at least a quarter of duplicates.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean hasManyDuplicates(Object[] array, int size, Comparator c) {
+        int sampleSize = Math.min(SAMPLE_SIZE, size);
+        Object[] sample = new Object[sampleSize];
+        int step = size / sampleSize;
+        for (int i = 0; i < sampleSize; i++)
+            sample[i] = array[i * step];
+        insertionSort(sample, 0, sampleSize - 1, c);
+        int duplicates = 0;
+        for (int i = 1; i < sampleSize; i++)
+            if (c.compare(sample[i - 1], sample[i]) == 0)
+                duplicates++;
+        return duplicates * 4 >= sampleSize;
+    }
+
+    /**
+     * Returns up to {@code SAMPLE_SIZE} elements of {@code array[first..last]}, sorted. Unlike the
+     * sample of {@code hasManyDuplicates}, the first and the last element are always taken, and
+     * the distance between the taken elements is not an integer, so the sample does not consist
+     * of the same element of each period of periodic data.
+     */
+    @SuppressWarnings("rawtypes")
+    private static Object[] sortedSample(Object[] array, int first, int last, Comparator c) {
+        int sampleSize = Math.min(SAMPLE_SIZE, last - first + 1);
+        Object[] sample = new Object[sampleSize];
+        for (int i = 0; i < sampleSize; i++)
+            sample[i] = array[first + (int) ((long) i * (last - first) / Math.max(sampleSize - 1, 1))];
+        insertionSort(sample, 0, sampleSize - 1, c);
+        return sample;
+    }
+
+    /**
+     * Sorts {@code array[first..last]} by insertion sort.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void insertionSort(Object[] array, int first, int last, Comparator c) {
+        for (int i = first + 1; i <= last; i++) {
+            Object element = array[i];
+            int j = i - 1;
+            while (j >= first && c.compare(array[j], element) > 0) {
+                array[j + 1] = array[j];
+                j--;
+            }
+            array[j + 1] = element;
+        }
+    }
+
+    /**
+     * Sorts the first {@code size} elements of the {@code array} by finding its runs, reversing
+     * the strictly descending ones, and merging neighbouring runs pairwise until one run is left.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void mergeRuns(Object[] array, int size, Comparator c) {
+        int[] bounds = new int[MAX_RUN_COUNT + 1];
+        int runs = 0;
+        for (int start = 0; start < size; ) {
+            int end = runEnd(array, start, size, c);
+            if (end - start > 1 && c.compare(array[start + 1], array[start]) < 0)
+                reverse(array, start, end - 1);
+            if (runs + 1 == bounds.length)
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            bounds[++runs] = end;
+            start = end;
+        }
+        if (runs <= 1)
+            return;
+
+        Object[] src = array;
+        Object[] dst = new Object[size];
+        while (runs > 1) {
+            int merged = 0;
+            int k = 0;
+            for (; k + 1 < runs; k += 2) {
+                merge(src, bounds[k], bounds[k + 1], bounds[k + 2], dst, c);
+                bounds[++merged] = bounds[k + 2];
+            }
+            if (k < runs) {
+                System.arraycopy(src, bounds[k], dst, bounds[k], bounds[k + 1] - bounds[k]);
+                bounds[++merged] = bounds[k + 1];
+            }
+            runs = merged;
+            Object[] temp = src;
+            src = dst;
+            dst = temp;
+        }
+        if (src != array)
+            System.arraycopy(src, 0, array, 0, size);
+    }
+
+    /**
+     * Merges the sorted ranges {@code src[from..middle)} and {@code src[middle..to)} into
+     * {@code dst[from..to)}. Of two equal elements, the one from the left range goes first.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void merge(Object[] src, int from, int middle, int to, Object[] dst, Comparator c) {
+        int i = from;
+        int j = middle;
+        int k = from;
+        while (i < middle && j < to)
+            dst[k++] = c.compare(src[j], src[i]) < 0 ? src[j++] : src[i++];
+        System.arraycopy(src, i, dst, k, middle - i);
+        System.arraycopy(src, j, dst, k + middle - i, to - j);
+    }
+
+    /**
+     * Sorts the first {@code size} elements of the {@code array}, which are all {@link Integer},
+     * by counting sort. The elements themselves are moved, so equal elements keep their order.
+     */
+    private static void countingSort(Object[] array, int size) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            min = Math.min(min, (Integer) array[i]);
+            max = Math.max(max, (Integer) array[i]);
+        }
+        int[] positions = new int[max - min + 2];
+        for (int i = 0; i < size; i++)
+            positions[(Integer) array[i] - min + 1]++;
+        for (int i = 1; i < positions.length; i++)
+            positions[i] += positions[i - 1];
+        Object[] sorted = new Object[size];
+        for (int i = 0; i < size; i++)
+            sorted[positions[(Integer) array[i] - min]++] = array[i];
+        System.arraycopy(sorted, 0, array, 0, size);
+    }
+
+    /**
+     * Sorts {@code array[first..last]} by quick sort with three-way partitioning. The pivot is
+     * chosen by {@code pivot}. The smaller part is sorted recursively and the larger one in the
+     * loop, so the recursion depth is O(log n). After {@code depthLimit} partitionings the rest
+     * of the range is sorted by heapsort.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void threeWayQuickSort(Object[] array, int first, int last, Comparator c, int depthLimit) {
+        while (last - first >= INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(array, first, last, c);
+                return;
+            }
+            Object pivot = pivot(array, first, last, c);
+            int less = first;
+            int i = first;
+            int greater = last;
+            while (i <= greater) {
+                int cmp = c.compare(array[i], pivot);
+                if (cmp < 0)
+                    swap(array, less++, i++);
+                else if (cmp > 0)
+                    swap(array, i, greater--);
+                else
+                    i++;
+            }
+            if (less - first < last - greater) {
+                threeWayQuickSort(array, first, less - 1, c, depthLimit);
+                first = greater + 1;
+            } else {
+                threeWayQuickSort(array, greater + 1, last, c, depthLimit);
+                last = less - 1;
+            }
+        }
+        insertionSort(array, first, last, c);
+    }
+
+    /**
+     * Chooses the pivot for {@code array[first..last]}: the median of {@code sortedSample} for
+     * a range of at least {@code SAMPLE_SIZE * SAMPLE_SIZE} elements, where sorting the sample
+     * costs less than one comparison per element, and the median of three medians of three
+     * (Tukey's ninther) for a smaller one. A median of just the first, the middle and the last
+     * element is easily the maximum of periodic data with many duplicates, such as {@code i % 1000},
+     * and then each partitioning removes only one value from the range.
+     */
+    @SuppressWarnings("rawtypes")
+    private static Object pivot(Object[] array, int first, int last, Comparator c) {
+        if (last - first + 1 >= SAMPLE_SIZE * SAMPLE_SIZE) {
+            Object[] sample = sortedSample(array, first, last, c);
+            return sample[sample.length >>> 1];
+        }
+        int step = (last - first) >>> 3;
+        int middle = (first + last) >>> 1;
+        return medianOfThree(
+                medianOfThree(array[first], array[first + step], array[first + 2 * step], c),
+                medianOfThree(array[middle - step], array[middle], array[middle + step], c),
+                medianOfThree(array[last - 2 * step], array[last - step], array[last], c), c);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object medianOfThree(Object a, Object b, Object c, Comparator comparator) {
+        if (comparator.compare(a, b) > 0) {
+            Object temp = a;
+            a = b;
+            b = temp;
+        }
+        if (comparator.compare(b, c) <= 0)
+            return b;
+        return comparator.compare(a, c) > 0 ? a : c;
+    }
+
+    private static void reverse(Object[] array, int first, int last) {
+        while (first < last)
+            swap(array, first++, last--);
+    }
+
+    private static void swap(Object[] array, int i, int j) {
+        Object temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+}
@@ -0,0 +1,241 @@
+package com.gorokhov;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * <p>Block compression in the LZ4 block format, used by {@link CustomArrayListIO} for the chunks
+ * of a stream. A compressed block is a sequence of <i>sequences</i>, each of which is a token
+ * byte, a run of literal bytes and a back-reference (two-byte little-endian offset and length)
+ * to bytes that were already produced. The last sequence has literals only.</p>
+ *
+ * <p>The compressor finds matches with a single hash table of four-byte prefixes, which makes it
+ * fast rather than strong. The decompressor checks every length and offset against the bounds of
+ * both blocks and throws an {@link IOException} instead of reading or writing outside of them.</p>
+ *
+ * @author  Dmitrii Gorokhov
+ */
+final class BlockCompressor {
+
+    /**
+     * The shortest match that is encoded as a back-reference.
+     */
+    private static final int MIN_MATCH = 4;
+
+    /**
+     * The number of bytes at the end of a block that are always encoded as literals.
+     */
+    private static final int LAST_LITERALS = 5;
+
+    /**
+     * A match must start at least this number of bytes before the end of a block.
+     */
+    private static final int MATCH_FIND_LIMIT = 12;
+
+    /**
+     * The largest offset of a back-reference.
+     */
+    private static final int MAX_DISTANCE = 0xFFFF;
+
+    /**
+     * Base-2 logarithm of the size of the hash table.
+     */
+    private static final int HASH_LOG = 12;
+
+    /**
+     * A length that does not fit into its half of the token is continued in the following bytes.
+     */
+    private static final int RUN_MASK = 0xF;
+
+    private BlockCompressor() {
+    }
+
+    /**
+     * Returns the size of the buffer that is enough for the compressed form of a block of
+     * the specified length, even if the block cannot be compressed.
+     *
+     * @param length the length of the block
+     * @return the maximum length of the compressed block
+     */
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Returns the largest length that a compressed block of the specified length can decompress to.
+     * A length byte adds at most 255 to a match, and a token with its offset, three bytes, produces
+     * at most 19 bytes, so no byte of a block produces more than 255 bytes.
+     *
+     * @param length the length of the compressed block
+     * @return the maximum length of the decompressed block
+     */
+    static long maxDecompressedLength(int length) {
+        return (long) length * 255;
+    }
+
+    /**
+     * Compresses {@code src[srcOffset..srcOffset + length)} into {@code dst}, starting at index 0.
+     *
+     * @param src the array with the block to compress
+     * @param srcOffset the index of the first byte of the block
+     * @param length the length of the block
+     * @param dst the array for the compressed block, at least {@link #maxCompressedLength(int)} long
+     * @return the length of the compressed block
+     */
+    static int compress(byte[] src, int srcOffset, int length, byte[] dst) {
+        int srcEnd = srcOffset + length;
+        int anchor = srcOffset;
+        int dp = 0;
+        if (length > MATCH_FIND_LIMIT) {
+            int[] table = new int[1 << HASH_LOG];
+            Arrays.fill(table, -1);
+            int matchLimit = srcEnd - LAST_LITERALS;
+            int findLimit = srcEnd - MATCH_FIND_LIMIT;
+            int sp = srcOffset;
+            while (sp < findLimit) {
+                int sequence = readInt(src, sp);
+                int h = hash(sequence);
+                int ref = table[h];
+                table[h] = sp;
+                if (ref < 0 || sp - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    sp++;
+                    continue;
+                }
+                while (sp > anchor && ref > srcOffset && src[sp - 1] == src[ref - 1]) {
+                    sp--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (sp + matchLength < matchLimit && src[sp + matchLength] == src[ref + matchLength])
+                    matchLength++;
+                dp = writeLiterals(src, anchor, sp - anchor, matchLength - MIN_MATCH, dst, dp);
+                int offset = sp - ref;
+                dst[dp++] = (byte) offset;
+                dst[dp++] = (byte) (offset >>> 8);
+                if (matchLength - MIN_MATCH >= RUN_MASK)
+                    dp = writeLength(matchLength - MIN_MATCH - RUN_MASK, dst, dp);
+                sp += matchLength;
+                anchor = sp;
+            }
+        }
+        return writeLiterals(src, anchor, srcEnd - anchor, 0, dst, dp);
+    }
+
+    /**
+     * Decompresses {@code src[srcOffset..srcOffset + length)} into {@code dst}, starting at index 0.
+     *
+     * @param src the array with the compressed block
+     * @param srcOffset the index of the first byte of the compressed block
+     * @param length the length of the compressed block
+     * @param dst the array for the decompressed block
+     * @param maxLength the maximum number of bytes to produce
+     * @return the length of the decompressed block
+     * @throws IOException if the compressed block is malformed or decompresses to more
+     *         than {@code maxLength} bytes
+     */
+    static int decompress(byte[] src, int srcOffset, int length, byte[] dst, int maxLength) throws IOException {
+        int sp = srcOffset;
+        int srcEnd = srcOffset + length;
+        int dp = 0;
+        while (true) {
+            if (sp == srcEnd)
+                throw corrupted();
+            int token = src[sp++] & 0xFF;
+            int literals = token >>> 4;
+            if (literals == RUN_MASK) {
+                int b;
+                do {
+                    if (sp == srcEnd)
+                        throw corrupted();
+                    b = src[sp++] & 0xFF;
+                    literals += b;
+                } while (b == 0xFF);
+            }
+            if (literals > srcEnd - sp || literals > maxLength - dp)
+                throw corrupted();
+            System.arraycopy(src, sp, dst, dp, literals);
+            sp += literals;
+            dp += literals;
+            if (sp == srcEnd)
+                return dp;
+
+            if (srcEnd - sp < 2)
+                throw corrupted();
+            int offset = (src[sp] & 0xFF) | (src[sp + 1] & 0xFF) << 8;
+            sp += 2;
+            if (offset == 0 || offset > dp)
+                throw corrupted();
+            int matchLength = token & RUN_MASK;
+            if (matchLength == RUN_MASK) {
+                int b;
+                do {
+                    if (sp == srcEnd)
+                        throw corrupted();
+                    b = src[sp++] & 0xFF;
+                    matchLength += b;
+                } while (b == 0xFF);
+            }
+            matchLength += MIN_MATCH;
+            if (matchLength > maxLength - dp)
+                throw corrupted();
+            int ref = dp - offset;
+            if (offset >= matchLength) {
+                System.arraycopy(dst, ref, dst, dp, matchLength);
+                dp += matchLength;
+            } else {
+                for (int i = 0; i < matchLength; i++)
+                    dst[dp++] = dst[ref++];
+            }
+        }
+    }
+
+    /**
+     * Writes the token of a sequence and its literals.
+     *
+     * @param src the array with the literals
+     * @param from the index of the first literal
+     * @param literals the number of literals
+     * @param matchLength the length of the match minus {@code MIN_MATCH}
+     * @param dst the array for the compressed block
+     * @param dp the index in {@code dst} to write to
+     * @return the index in {@code dst} after the literals
+     */
+    private static int writeLiterals(byte[] src, int from, int literals, int matchLength, byte[] dst, int dp) {
+        int token = Math.min(literals, RUN_MASK) << 4 | Math.min(matchLength, RUN_MASK);
+        dst[dp++] = (byte) token;
+        if (literals >= RUN_MASK)
+            dp = writeLength(literals - RUN_MASK, dst, dp);
+        System.arraycopy(src, from, dst, dp, literals);
+        return dp + literals;
+    }
+
+    /**
+     * Writes the rest of a length that did not fit into the token, 255 per byte.
+     *
+     * @param length the rest of the length
+     * @param dst the array for the compressed block
+     * @param dp the index in {@code dst} to write to
+     * @return the index in {@code dst} after the length
+     */
+    private static int writeLength(int length, byte[] dst, int dp) {
+        while (length >= 0xFF) {
+            dst[dp++] = (byte) 0xFF;
+            length -= 0xFF;
+        }
+        dst[dp++] = (byte) length;
+        return dp;
+    }
+
+    private static int readInt(byte[] array, int index) {
+        return (array[index] & 0xFF) | (array[index + 1] & 0xFF) << 8
+                | (array[index + 2] & 0xFF) << 16 | (array[index + 3] & 0xFF) << 24;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static IOException corrupted() {
+        return new IOException("Corrupted compressed block");
+    }
+}
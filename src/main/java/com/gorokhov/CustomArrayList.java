@@ -24,10 +24,15 @@ import java.util.*;
  * object (with elements that implement the {@link Comparable} interface) and optionally
  * a {@link Comparator} object.</p>
  *
+ * <p>The static method {@code sort} takes the same arguments, but first checks the size of the list,
+ * how much of it is already sorted and how many duplicates it has, and then sorts it with the most
+ * suitable of several algorithms (see {@link SortEngine}).</p>
+ *
  * @param   <E> the type of elements
  *
  * @see     Comparable
  * @see     Comparator
+ * @see     SortEngine
  * @author  Dmitrii Gorokhov
  */
 public class CustomArrayList<E> {
@@ -48,6 +53,18 @@ public class CustomArrayList<E> {
      */
     private static final int DEFAULT_CAPACITY = 10;
 
+    /**
+     * The maximum capacity. Some VMs cannot allocate arrays that are only a few elements
+     * shorter than {@code Integer.MAX_VALUE}.
+     */
+    static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    /**
+     * From this number of elements, quicksort takes the median of three medians of three
+     * (Tukey's ninther) as the pivot instead of the median of three elements.
+     */
+    static final int NINTHER_THRESHOLD = 40;
+
     /**
      * Creates an empty list with an initial capacity of ten.
      */
@@ -77,8 +94,11 @@ public class CustomArrayList<E> {
      * a {@link ClassCastException} for any elements {@code e1} and {@code e2} in the list).
      *
      * <p>The average execution time of quicksort is O(n*log n) exchanges when ordering
-     * n elements. Severely degrades in speed (up to O(n^2) in the worst case or close
-     * to it, which can happen with bad input data.</p>
+     * n elements. The pivot is the median of the first, the middle and the last element, or of
+     * three such medians of nine evenly spaced elements in a larger range, so sorted, reverse
+     * sorted and nearly sorted lists are split evenly. If the recursion still gets deeper
+     * than {@code 2*log n} because of bad input data, the rest of the range is sorted by heapsort,
+     * so the worst case is O(n*log n) as well.</p>
      *
      * @param   <E> the class of the objects in the list
      * @param   list the list to be sorted.
@@ -90,7 +110,7 @@ public class CustomArrayList<E> {
      * @see     Comparable
      */
     public static <E extends Comparable<? super E>> void quickSort(CustomArrayList<E> list) {
-        sort(list.getArray(), 0, list.size() - 1, null);
+        sort(list.getArray(), 0, list.size() - 1, null, AdaptiveSort.depthLimit(list.size()));
     }
 
     /**
@@ -101,8 +121,11 @@ public class CustomArrayList<E> {
      * the list).
      *
      * <p>The average execution time of quicksort is O(n*log n) exchanges when ordering
-     * n elements. Severely degrades in speed (up to O(n^2) in the worst case or close
-     * to it, which can happen with bad input data.</p>
+     * n elements. The pivot is the median of the first, the middle and the last element, or of
+     * three such medians of nine evenly spaced elements in a larger range, so sorted, reverse
+     * sorted and nearly sorted lists are split evenly. If the recursion still gets deeper
+     * than {@code 2*log n} because of bad input data, the rest of the range is sorted by heapsort,
+     * so the worst case is O(n*log n) as well.</p>
      *
      * @param   <E> the class of the objects in the list
      * @param   list the list to be sorted.
@@ -116,12 +139,83 @@ public class CustomArrayList<E> {
      * @see     Comparator
      */
     public static <E> void quickSort(CustomArrayList<E> list, Comparator<? super E> comparator) {
-        sort(list.getArray(), 0, list.size() - 1, comparator);
+        sort(list.getArray(), 0, list.size() - 1, comparator, AdaptiveSort.depthLimit(list.size()));
     }
 
     /**
-     * One of three private methods (the others are {@code calculateWallPosition} and {@code swap})
-     * that together implement the quicksort algorithm.
+     * Sorts the specified list into ascending order, according to the {@linkplain Comparable natural
+     * ordering} of its elements, by the algorithm that suits the list best. All elements in the list
+     * must implement the {@link Comparable} interface and must be <i>mutually comparable</i>.
+     *
+     * <p>The method takes a few cheap looks at the list before sorting it: small lists are sorted by
+     * insertion sort, lists that consist of a few sorted (or reverse sorted) runs by merging the runs,
+     * {@link Integer} lists with a small range of values by counting sort, lists with many duplicates
+     * by three-way quick sort, and all other lists by {@code quickSort}. The algorithm that was used
+     * is returned. Whether equal elements keep their order depends on the algorithm.</p>
+     *
+     * @param   <E> the class of the objects in the list
+     * @param   list the list to be sorted.
+     * @return  the algorithm that sorted the list
+     * @throws  ClassCastException if the list contains elements that are not
+     *         <i>mutually comparable</i> (for example, strings and integers).
+     * @throws  IllegalArgumentException (optional) if the implementation
+     *         detects that the natural ordering of the list elements is
+     *         found to violate the {@link Comparable} contract
+     * @see     SortEngine
+     */
+    public static <E extends Comparable<? super E>> SortEngine sort(CustomArrayList<E> list) {
+        return adaptiveSort(list.getArray(), list.size(), null);
+    }
+
+    /**
+     * Sorts the specified list according to the order induced by the specified {@link Comparator},
+     * by the algorithm that suits the list best. All elements in the list must be mutually
+     * comparable by the specified {@link Comparator}.
+     *
+     * <p>The algorithm is chosen in the same way as by {@link #sort(CustomArrayList)}, except that
+     * counting sort is only used for the natural ordering ({@code null} comparator).</p>
+     *
+     * @param   <E> the class of the objects in the list
+     * @param   list the list to be sorted.
+     * @param   comparator the comparator to determine the order of the array. A {@code null}
+     *          value indicates that the elements' {@linkplain Comparable natural ordering}
+     *          should be used.
+     * @return  the algorithm that sorted the list
+     * @throws ClassCastException if the array contains elements that are not
+     *         <i>mutually comparable</i> using the specified comparator.
+     * @throws IllegalArgumentException (optional) if the comparator is found to violate
+     *         the {@link Comparator} contract
+     * @see     SortEngine
+     */
+    public static <E> SortEngine sort(CustomArrayList<E> list, Comparator<? super E> comparator) {
+        return adaptiveSort(list.getArray(), list.size(), comparator);
+    }
+
+    /**
+     * Chooses the sorting algorithm for the first {@code size} elements of the {@code array} and
+     * sorts them with it. Quick sort is done by the {@code sort} method of this class, and all other
+     * algorithms by {@link AdaptiveSort}.
+     *
+     * @param   array the array to be sorted.
+     * @param   size the number of elements to be sorted.
+     * @param   comparator the comparator to determine the order of the array. A {@code null}
+     *          value indicates that the elements' {@linkplain Comparable natural ordering}
+     *          should be used.
+     * @return  the algorithm that sorted the array
+     */
+    @SuppressWarnings("rawtypes")
+    private static SortEngine adaptiveSort(Object[] array, int size, Comparator comparator) {
+        SortEngine engine = AdaptiveSort.choose(array, size, comparator);
+        if (engine == SortEngine.QUICK)
+            sort(array, 0, size - 1, comparator, AdaptiveSort.depthLimit(size));
+        else
+            AdaptiveSort.sort(engine, array, size, comparator);
+        return engine;
+    }
+
+    /**
+     * One of four private methods (the others are {@code calculateWallPosition}, {@code medianOfThree}
+     * and {@code swap}) that together implement the quicksort algorithm.
      *
      * <p>This method takes as parameters the {@code array} to be sorted, the {@code first} and
      * the {@code last} index. First, we check the indices and continue only if there are still
@@ -129,12 +223,16 @@ public class CustomArrayList<E> {
      * {@code calculateWallPosition} method with the same parameters as the sort() method, but
      * with different indices.</p>
      *
+     * <p>Each recursive call decreases the {@code depthLimit}. When it reaches zero, the partitioning
+     * has been unbalanced for too long, and the range is sorted by heapsort instead.</p>
+     *
      * @param   array the array to be sorted.
      * @param   first the first index of array.
      * @param   last the last index of array.
      * @param   comparator the comparator to determine the order of the array. A {@code null}
      *          value indicates that the elements' {@linkplain Comparable natural ordering}
      *          should be used.
+     * @param   depthLimit the number of recursion levels left before switching to heapsort.
      * @throws ClassCastException if the array contains elements that are not
      *         <i>mutually comparable</i> (for example, strings and integers).
      * @throws IllegalArgumentException (optional) if the comparator is found to violate
@@ -144,19 +242,25 @@ public class CustomArrayList<E> {
      * @see     Comparator
      */
     @SuppressWarnings("rawtypes")
-    private static void sort(Object[] array, int first, int last, Comparator comparator) {
+    private static void sort(Object[] array, int first, int last, Comparator comparator, int depthLimit) {
         if (first < last) {
+            if (depthLimit == 0) {
+                AdaptiveSort.heapSort(array, first, last, comparator);
+                return;
+            }
             int wallIndex = calculateWallPosition(array, first, last, comparator);
-            sort(array, first, wallIndex - 1, comparator);
-            sort(array, wallIndex + 1, last, comparator);
+            sort(array, first, wallIndex - 1, comparator, depthLimit - 1);
+            sort(array, wallIndex + 1, last, comparator, depthLimit - 1);
         }
     }
 
     /**
-     * Two of three private methods (the others are {@code sort} and {@code swap}) that together
-     * implement the quicksort algorithm.
+     * Two of four private methods (the others are {@code sort}, {@code medianOfThree} and {@code swap})
+     * that together implement the quicksort algorithm.
      *
-     * <p>This method takes the last element as the pivot. Then, checks each element and {@code swaps}
+     * <p>This method moves the median of the first, the middle and the last element (in a range
+     * of at least {@code NINTHER_THRESHOLD} elements, the median of three such medians of nine
+     * evenly spaced elements) to the last position and takes it as the pivot. Then, checks each element and {@code swaps}
      * it before the pivot if its value is smaller. By the end of the partitioning, all elements
      * less then the pivot are on the left of it and all elements greater then the pivot are on
      * the right of it. The pivot is at its final sorted position and the method returns this
@@ -179,6 +283,15 @@ public class CustomArrayList<E> {
      */
     @SuppressWarnings({"unchecked", "rawtypes"})
     private static int calculateWallPosition(Object[] array, int first, int last, Comparator comparator) {
+        if (last - first + 1 >= NINTHER_THRESHOLD) {
+            int step = (last - first) >>> 3;
+            int middle = (first + last) >>> 1;
+            swap(array, medianOfThree(array,
+                    medianOfThree(array, first, first + step, first + 2 * step, comparator),
+                    medianOfThree(array, middle - step, middle, middle + step, comparator),
+                    medianOfThree(array, last - 2 * step, last - step, last, comparator), comparator), last);
+        } else if (last - first > 1)
+            swap(array, medianOfThree(array, first, (first + last) >>> 1, last, comparator), last);
         Object pivot = array[last];
         int i = first - 1;
         if (comparator != null) {
@@ -195,8 +308,40 @@ public class CustomArrayList<E> {
     }
 
     /**
-     * Three of three private methods (the others are {@code sort} and {@code calculateWallPosition})
-     * that together implement the quicksort algorithm.
+     * Three of four private methods (the others are {@code sort}, {@code calculateWallPosition}
+     * and {@code swap}) that together implement the quicksort algorithm.
+     *
+     * <p>This method returns the index of the median of the elements with indexes {@code a},
+     * {@code b} and {@code c}.</p>
+     *
+     * @param   array the array to be sorted.
+     * @param   a the first index.
+     * @param   b the second index.
+     * @param   c the third index.
+     * @param   comparator the comparator to determine the order of the array. A {@code null}
+     *          value indicates that the elements' {@linkplain Comparable natural ordering}
+     *          should be used.
+     * @return  the index of the median element
+     * @throws ClassCastException if the array contains elements that are not
+     *         <i>mutually comparable</i> (for example, strings and integers).
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int medianOfThree(Object[] array, int a, int b, int c, Comparator comparator) {
+        if (comparator == null)
+            comparator = Comparator.naturalOrder();
+        if (comparator.compare(array[a], array[b]) > 0) {
+            int temp = a;
+            a = b;
+            b = temp;
+        }
+        if (comparator.compare(array[b], array[c]) <= 0)
+            return b;
+        return comparator.compare(array[a], array[c]) > 0 ? a : c;
+    }
+
+    /**
+     * Four of four private methods (the others are {@code sort}, {@code calculateWallPosition}
+     * and {@code medianOfThree}) that together implement the quicksort algorithm.
      *
      * <p>This method takes as parameter the {@code array} in which it is necessary to swap elements
      * with indexes {@code i} and {@code j}.</p>
@@ -415,11 +560,27 @@ public class CustomArrayList<E> {
     private void increase() {
         int oldCapacity = data.length;
         if (oldCapacity > 0)
-            data = Arrays.copyOf(data, oldCapacity * 3 / 2 + 1);
+            data = Arrays.copyOf(data, newCapacity(oldCapacity));
         else
             data = new Object[DEFAULT_CAPACITY];
     }
 
+    /**
+     * Returns the capacity that a full list of the specified capacity grows to: 1.5 times
+     * the old capacity plus one, but no more than {@code MAX_CAPACITY}. The new capacity is
+     * computed in {@code long}, so it does not overflow for capacities above
+     * {@code Integer.MAX_VALUE / 3}.
+     *
+     * @param oldCapacity the current capacity, greater than zero
+     * @return the new capacity
+     * @throws OutOfMemoryError if the list already has the maximum capacity
+     */
+    static int newCapacity(int oldCapacity) {
+        if (oldCapacity >= MAX_CAPACITY)
+            throw new OutOfMemoryError("Required array size too large");
+        return (int) Math.min(oldCapacity * 3L / 2 + 1, MAX_CAPACITY);
+    }
+
     /**
      * Helper method to shift left by 1 position of all elements starting from position (index + 1)
      *
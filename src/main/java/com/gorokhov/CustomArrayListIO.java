@@ -0,0 +1,433 @@
+package com.gorokhov;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * <p>{@code CustomArrayListIO} writes a {@link CustomArrayList} to a channel in a compact binary
+ * format and reads it back. Only the elements of the list are written, not the free capacity
+ * of its array. The elements are converted to bytes by an {@link ElementCodec}.</p>
+ *
+ * <p>The stream starts with a header:</p>
+ * <ul>
+ *  <li>magic number {@code "CALS"} (4 bytes);</li>
+ *  <li>format version (1 byte);</li>
+ *  <li>id of the codec (1 byte);</li>
+ *  <li>flags, bit 0 is set if chunks may be compressed (1 byte);</li>
+ *  <li>number of elements in the list (4 bytes).</li>
+ * </ul>
+ *
+ * <p>The header is followed by chunks. A chunk holds up to 8192 elements and about 64 KiB of
+ * encoded data, and starts with the number of its elements, the length of its data before and
+ * after compression (4 bytes each) and flags (1 byte: bit 0 - the data is compressed, bit 1 - the
+ * data starts with a bitmap of {@code null} elements). All numbers are big-endian.</p>
+ *
+ * <p>Lists are written and read one chunk at a time, so both directions need memory
+ * proportional to the size of a chunk rather than to the size of the list. An element that
+ * does not fit in a chunk is written as a chunk of its own. The reader consumes exactly
+ * the bytes of one list, so several lists can be written to the same channel one after
+ * another.</p>
+ *
+ * <p>The sizes in a stream are not trusted when reading. The list starts with the capacity of
+ * one chunk and grows as chunks are read, unless the channel knows its size, as a
+ * {@link FileChannel} does. Then a number of elements that the chunk headers in the rest of
+ * the channel cannot hold is rejected, and the list starts with the capacity taken from the
+ * header, but no more than eight elements per remaining byte, so a highly compressed list may
+ * still grow. The lengths in a chunk header are checked before the chunk is read: the encoded
+ * data of a chunk with more than one element must fit in the buffer of a chunk, compressed data
+ * must not expand more than LZ4 can, and on a channel that knows its size, the data must fit
+ * in the rest of the channel. A single element can therefore still need as much memory as
+ * 255 times the length of its compressed data.</p>
+ *
+ * @see     ElementCodec
+ * @author  Dmitrii Gorokhov
+ */
+public final class CustomArrayListIO {
+
+    /**
+     * {@code "CALS"} in ASCII.
+     */
+    private static final int MAGIC = 0x43414C53;
+
+    /**
+     * Current version of the format.
+     */
+    private static final byte VERSION = 1;
+
+    private static final int HEADER_SIZE = 11;
+
+    private static final int CHUNK_HEADER_SIZE = 13;
+
+    /**
+     * Header flag: chunks may be compressed.
+     */
+    private static final int COMPRESSED_STREAM = 1;
+
+    /**
+     * Chunk flag: the data of the chunk is compressed.
+     */
+    private static final int COMPRESSED_CHUNK = 1;
+
+    /**
+     * Chunk flag: the data of the chunk starts with a bitmap of {@code null} elements.
+     */
+    private static final int HAS_NULLS = 2;
+
+    /**
+     * Maximum number of elements in a chunk.
+     */
+    private static final int CHUNK_ELEMENTS = 8192;
+
+    /**
+     * Size of the {@code null} bitmap for a full chunk.
+     */
+    private static final int BITMAP_SIZE = CHUNK_ELEMENTS / 8;
+
+    /**
+     * Size of the encoded elements of a chunk, unless a single element is larger.
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private CustomArrayListIO() {
+    }
+
+    /**
+     * Writes the {@code list} to the {@code channel} without compression.
+     *
+     * @param   <E> the type of elements
+     * @param   list the list to be written
+     * @param   codec the codec for the elements of the list
+     * @param   channel the channel to write to
+     * @throws  IOException if an I/O error occurs
+     */
+    public static <E> void write(CustomArrayList<E> list, ElementCodec<E> codec,
+                                 WritableByteChannel channel) throws IOException {
+        write(list, codec, channel, false);
+    }
+
+    /**
+     * Writes the {@code list} to the {@code channel}. If {@code compress} is {@code true}, each chunk
+     * is compressed, unless it does not get smaller.
+     *
+     * @param   <E> the type of elements
+     * @param   list the list to be written
+     * @param   codec the codec for the elements of the list
+     * @param   channel the channel to write to
+     * @param   compress whether the chunks should be compressed
+     * @throws  IOException if an I/O error occurs
+     */
+    public static <E> void write(CustomArrayList<E> list, ElementCodec<E> codec,
+                                 WritableByteChannel channel, boolean compress) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .put(VERSION)
+                .put((byte) codec.id())
+                .put((byte) (compress ? COMPRESSED_STREAM : 0))
+                .putInt(list.size());
+        writeFully(channel, header.flip());
+
+        ChunkWriter<E> writer = new ChunkWriter<>(codec, channel, compress);
+        for (int i = 0; i < list.size(); i++)
+            writer.add(list.get(i));
+        writer.flush();
+    }
+
+    /**
+     * Reads a list written by {@code write} from the {@code channel}.
+     *
+     * @param   <E> the type of elements
+     * @param   channel the channel to read from
+     * @param   codec the codec for the elements of the list, the same as when the list was written
+     * @return  the list
+     * @throws  EOFException if the channel ends before the whole list is read
+     * @throws  IOException if an I/O error occurs, the stream was written with another codec,
+     *          or the stream is corrupted
+     */
+    public static <E> CustomArrayList<E> read(ReadableByteChannel channel, ElementCodec<E> codec) throws IOException {
+        ByteBuffer header = readFully(channel, ByteBuffer.allocate(HEADER_SIZE));
+        if (header.getInt() != MAGIC)
+            throw new IOException("Not a CustomArrayList stream");
+        byte version = header.get();
+        if (version != VERSION)
+            throw new IOException("Unsupported version: " + version);
+        byte codecId = header.get();
+        if (codecId != (byte) codec.id())
+            throw new IOException("Written with codec " + codecId + ", read with codec " + codec.id());
+        header.get();
+        int size = header.getInt();
+        if (size < 0)
+            throw new IOException("Illegal size: " + size);
+
+        int capacity = Math.min(size, CHUNK_ELEMENTS);
+        if (channel instanceof SeekableByteChannel seekable) {
+            // Each chunk has a header and holds at most CHUNK_ELEMENTS elements
+            long remaining = seekable.size() - seekable.position();
+            long chunks = (remaining + CHUNK_HEADER_SIZE - 1) / CHUNK_HEADER_SIZE;
+            if (size > chunks * CHUNK_ELEMENTS)
+                throw new IOException("Illegal size: " + size + " elements in " + remaining + " bytes");
+            // Unless it is compressed, each element takes at least one bit: a null in the bitmap,
+            // or a byte of data
+            capacity = (int) Math.min(size, remaining * 8);
+        }
+        CustomArrayList<E> list = new CustomArrayList<>(capacity);
+        ChunkReader<E> reader = new ChunkReader<>(codec, channel);
+        while (list.size() < size)
+            reader.readChunk(list, size - list.size());
+        return list;
+    }
+
+    /**
+     * Writes the {@code list} to the file, replacing its contents, without compression.
+     *
+     * @param   <E> the type of elements
+     * @param   list the list to be written
+     * @param   codec the codec for the elements of the list
+     * @param   path the path to the file
+     * @throws  IOException if an I/O error occurs
+     */
+    public static <E> void store(CustomArrayList<E> list, ElementCodec<E> codec, Path path) throws IOException {
+        store(list, codec, path, false);
+    }
+
+    /**
+     * Writes the {@code list} to the file, replacing its contents.
+     *
+     * @param   <E> the type of elements
+     * @param   list the list to be written
+     * @param   codec the codec for the elements of the list
+     * @param   path the path to the file
+     * @param   compress whether the chunks should be compressed
+     * @throws  IOException if an I/O error occurs
+     */
+    public static <E> void store(CustomArrayList<E> list, ElementCodec<E> codec, Path path,
+                                 boolean compress) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(list, codec, channel, compress);
+        }
+    }
+
+    /**
+     * Reads a list written by {@code store} from the file.
+     *
+     * @param   <E> the type of elements
+     * @param   path the path to the file
+     * @param   codec the codec for the elements of the list, the same as when the list was stored
+     * @return  the list
+     * @throws  IOException if an I/O error occurs, the file was written with another codec,
+     *          or the file is corrupted
+     */
+    public static <E> CustomArrayList<E> load(Path path, ElementCodec<E> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel, codec);
+        }
+    }
+
+    /**
+     * Writes all remaining bytes of the {@code buffer} to the {@code channel}.
+     */
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * Fills the {@code buffer} from the {@code channel} and flips it for reading.
+     */
+    private static ByteBuffer readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            if (channel.read(buffer) < 0)
+                throw new EOFException("Unexpected end of stream");
+        return buffer.flip();
+    }
+
+    /**
+     * Collects encoded elements into a chunk and writes it when it is full.
+     *
+     * <p>The encoded elements are placed in {@code data} after the space reserved for
+     * the {@code null} bitmap, so the bitmap and the elements can be written (or compressed)
+     * as one contiguous block without copying the elements.</p>
+     *
+     * @param <E> the type of elements
+     */
+    private static final class ChunkWriter<E> {
+
+        private final ElementCodec<E> codec;
+
+        private final WritableByteChannel channel;
+
+        private final boolean compress;
+
+        private final byte[] nulls = new byte[BITMAP_SIZE];
+
+        private final ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+
+        private ByteBuffer data = ByteBuffer.allocate(BITMAP_SIZE + CHUNK_SIZE).position(BITMAP_SIZE);
+
+        private byte[] compressed;
+
+        private int count;
+
+        private boolean hasNulls;
+
+        ChunkWriter(ElementCodec<E> codec, WritableByteChannel channel, boolean compress) {
+            this.codec = codec;
+            this.channel = channel;
+            this.compress = compress;
+        }
+
+        void add(E element) throws IOException {
+            if (count == CHUNK_ELEMENTS)
+                flush();
+            if (element == null) {
+                nulls[count >>> 3] |= (byte) (1 << (count & 7));
+                hasNulls = true;
+            } else {
+                int size = codec.maxEncodedSize(element);
+                if (size > data.remaining()) {
+                    flush();
+                    if (size > data.remaining()) {
+                        // Written as a chunk of its own, flush() goes back to the normal buffer
+                        data = ByteBuffer.allocate(BITMAP_SIZE + size).position(BITMAP_SIZE);
+                        codec.encode(element, data);
+                        count++;
+                        flush();
+                        return;
+                    }
+                }
+                codec.encode(element, data);
+            }
+            count++;
+        }
+
+        void flush() throws IOException {
+            if (count == 0)
+                return;
+            int from = BITMAP_SIZE;
+            if (hasNulls) {
+                int bitmapSize = (count + 7) >>> 3;
+                from -= bitmapSize;
+                System.arraycopy(nulls, 0, data.array(), from, bitmapSize);
+            }
+            int rawLength = data.position() - from;
+            byte[] stored = data.array();
+            int storedFrom = from;
+            int storedLength = rawLength;
+            int flags = hasNulls ? HAS_NULLS : 0;
+            if (compress) {
+                int bound = BlockCompressor.maxCompressedLength(rawLength);
+                if (compressed == null || compressed.length < bound)
+                    compressed = new byte[bound];
+                int length = BlockCompressor.compress(data.array(), from, rawLength, compressed);
+                if (length < rawLength) {
+                    stored = compressed;
+                    storedFrom = 0;
+                    storedLength = length;
+                    flags |= COMPRESSED_CHUNK;
+                }
+            }
+            header.clear()
+                    .putInt(count)
+                    .putInt(rawLength)
+                    .putInt(storedLength)
+                    .put((byte) flags);
+            writeFully(channel, header.flip());
+            writeFully(channel, ByteBuffer.wrap(stored, storedFrom, storedLength));
+
+            Arrays.fill(nulls, (byte) 0);
+            if (data.capacity() > BITMAP_SIZE + CHUNK_SIZE) {
+                data = ByteBuffer.allocate(BITMAP_SIZE + CHUNK_SIZE);
+                compressed = null;
+            }
+            data.position(BITMAP_SIZE);
+            count = 0;
+            hasNulls = false;
+        }
+    }
+
+    /**
+     * Reads chunks and decodes their elements into a list.
+     *
+     * @param <E> the type of elements
+     */
+    private static final class ChunkReader<E> {
+
+        private final ElementCodec<E> codec;
+
+        private final ReadableByteChannel channel;
+
+        private final ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+
+        private final byte[] stored = new byte[BITMAP_SIZE + CHUNK_SIZE];
+
+        private byte[] raw;
+
+        ChunkReader(ElementCodec<E> codec, ReadableByteChannel channel) {
+            this.codec = codec;
+            this.channel = channel;
+        }
+
+        /**
+         * Reads the next chunk and adds its elements to the {@code list}.
+         *
+         * @param list the list to add the elements to
+         * @param remaining the number of elements that the stream has not yet provided
+         */
+        void readChunk(CustomArrayList<E> list, int remaining) throws IOException {
+            readFully(channel, header.clear());
+            int count = header.getInt();
+            int rawLength = header.getInt();
+            int storedLength = header.getInt();
+            int flags = header.get();
+            boolean compressed = (flags & COMPRESSED_CHUNK) != 0;
+            if (count <= 0 || count > remaining || count > CHUNK_ELEMENTS || rawLength < 0 || storedLength < 0
+                    || (rawLength > BITMAP_SIZE + CHUNK_SIZE && count != 1)
+                    || (compressed ? storedLength > BlockCompressor.maxCompressedLength(rawLength)
+                                     || rawLength > BlockCompressor.maxDecompressedLength(storedLength)
+                                   : storedLength != rawLength))
+                throw new IOException("Corrupted chunk header");
+            if (channel instanceof SeekableByteChannel seekable && storedLength > seekable.size() - seekable.position())
+                throw new EOFException("Unexpected end of stream");
+
+            // A chunk with one large element needs larger buffers, which are not kept for the next chunks
+            byte[] stored = storedLength > this.stored.length ? new byte[storedLength] : this.stored;
+            readFully(channel, ByteBuffer.wrap(stored, 0, storedLength));
+            byte[] chunk = stored;
+            if (compressed) {
+                if (raw == null)
+                    raw = new byte[BITMAP_SIZE + CHUNK_SIZE];
+                chunk = rawLength > raw.length ? new byte[rawLength] : raw;
+                if (BlockCompressor.decompress(stored, 0, storedLength, chunk, rawLength) != rawLength)
+                    throw new IOException("Corrupted compressed block");
+            }
+
+
+            ByteBuffer data = ByteBuffer.wrap(chunk, 0, rawLength);
+            int bitmapSize = (flags & HAS_NULLS) != 0 ? (count + 7) >>> 3 : 0;
+            if (bitmapSize > rawLength)
+                throw new IOException("Corrupted chunk");
+            data.position(bitmapSize);
+            try {
+                for (int i = 0; i < count; i++) {
+                    if (bitmapSize > 0 && (chunk[i >>> 3] & 1 << (i & 7)) != 0)
+                        list.add(null);
+                    else
+                        list.add(codec.decode(data));
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Corrupted chunk", e);
+            }
+            if (data.hasRemaining())
+                throw new IOException("Corrupted chunk");
+        }
+    }
+}
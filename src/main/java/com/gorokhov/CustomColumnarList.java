@@ -0,0 +1,833 @@
+package com.gorokhov;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * <p>{@code CustomColumnarList} is a dynamic table of numeric records stored column by column
+ * (a "struct of arrays"). Each column has a {@link ColumnType} and keeps the values of all rows
+ * in its own primitive array, so a row of an {@code int} and two {@code double} fields takes
+ * 20 bytes instead of an object with a header and three fields referenced from an array.</p>
+ *
+ * <p>As you add rows, the capacity of all columns automatically increases by 1.5 times,
+ * as in {@link CustomArrayList}.</p>
+ *
+ * <p>{@code CustomColumnarList} is not synchronized.</p>
+ *
+ * {@code CustomColumnarList} provides:
+ * <ul>
+ *  <li>Row access by index ({@code get}, {@code set}, {@code add}, {@code insert}, {@code remove})
+ *      with the values of a row passed as {@link Number Numbers}, and cell access by row and column
+ *      index with the primitive value ({@code getInt}, {@code setInt} and so on);</li>
+ *  <li>The arrays of the columns ({@code getIntColumn} and so on), whose first {@code size}
+ *      elements can be scanned directly or with {@link PrimitiveArrays}, for example
+ *      {@code PrimitiveArrays.max(list.getDoubleColumn(2), 0, list.size())};</li>
+ *  <li>Filtering of the rows by the values of one column ({@code filterInt} and so on);</li>
+ *  <li>Sorting of the rows by one or more key columns ({@code sortBy}). The order is computed once
+ *      as a permutation of the row indices and then applied to every column.</li>
+ * </ul>
+ *
+ * @see     CustomArrayList
+ * @see     PrimitiveArrays
+ * @author  Dmitrii Gorokhov
+ */
+public class CustomColumnarList {
+
+    /**
+     * Types of the columns.
+     */
+    public enum ColumnType {
+
+        /**
+         * Column of {@code int} values.
+         */
+        INT,
+
+        /**
+         * Column of {@code long} values.
+         */
+        LONG,
+
+        /**
+         * Column of {@code double} values. The values are ordered as by {@link Double#compare}.
+         */
+        DOUBLE
+    }
+
+    /**
+     * Types of the columns.
+     */
+    private final ColumnType[] types;
+
+    /**
+     * Arrays that hold the values of the columns: {@code int[]}, {@code long[]} or {@code double[]}
+     * according to the type of the column. All arrays have the same length, which is the capacity
+     * of the CustomColumnarList.
+     */
+    private final Object[] columns;
+
+    /**
+     * Number of rows in CustomColumnarList.
+     */
+    private int size;
+
+    /**
+     * Length of the arrays of the columns.
+     */
+    private int capacity;
+
+    /**
+     * Default initial capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 10;
+
+    /**
+     * Below this number of rows, {@code sortBy} sorts the row indices by insertion sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * Creates an empty list with the specified columns and an initial capacity of ten.
+     *
+     * @param  types the types of the columns
+     * @throws IllegalArgumentException if no columns are specified
+     * @throws NullPointerException if any of the types is {@code null}
+     */
+    public CustomColumnarList(ColumnType... types) {
+        this(DEFAULT_CAPACITY, types);
+    }
+
+    /**
+     * Creates an empty list with the specified columns and the specified initial capacity.
+     *
+     * @param  initCapacity the initial capacity of the list
+     * @param  types the types of the columns
+     * @throws IllegalArgumentException if the specified initial capacity is negative
+     *         or no columns are specified
+     * @throws NullPointerException if any of the types is {@code null}
+     */
+    public CustomColumnarList(int initCapacity, ColumnType... types) {
+        if (initCapacity < 0)
+            throw new IllegalArgumentException("Illegal Capacity: " + initCapacity);
+        if (types.length == 0)
+            throw new IllegalArgumentException("No columns");
+        this.types = types.clone();
+        this.columns = new Object[types.length];
+        for (int column = 0; column < types.length; column++)
+            columns[column] = newColumn(Objects.requireNonNull(this.types[column]), initCapacity);
+        this.capacity = initCapacity;
+    }
+
+    /**
+     * Returns the number of rows in this list
+     *
+     * @return the number of rows in this list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this list contains no rows
+     *
+     * @return {@code true} if this list contains no rows
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of columns in this list
+     *
+     * @return the number of columns in this list
+     */
+    public int columnCount() {
+        return types.length;
+    }
+
+    /**
+     * Returns the type of the specified column
+     *
+     * @param  column index of the column
+     * @return the type of the column
+     * @throws IndexOutOfBoundsException if the column index is out of bounds
+     */
+    public ColumnType columnType(int column) {
+        return types[Objects.checkIndex(column, types.length)];
+    }
+
+    /**
+     * Returns the array that holds the values of the specified {@code int} column.
+     * The values of the rows are at indices from {@code 0} to {@code size() - 1}.
+     *
+     * @param  column index of the column
+     * @return the array that holds the values of the column
+     * @throws IndexOutOfBoundsException if the column index is out of bounds
+     * @throws IllegalArgumentException if the column is not an {@code int} column
+     */
+    public int[] getIntColumn(int column) {
+        checkColumn(column, ColumnType.INT);
+        return (int[]) columns[column];
+    }
+
+    /**
+     * Returns the array that holds the values of the specified {@code long} column.
+     * The values of the rows are at indices from {@code 0} to {@code size() - 1}.
+     *
+     * @param  column index of the column
+     * @return the array that holds the values of the column
+     * @throws IndexOutOfBoundsException if the column index is out of bounds
+     * @throws IllegalArgumentException if the column is not a {@code long} column
+     */
+    public long[] getLongColumn(int column) {
+        checkColumn(column, ColumnType.LONG);
+        return (long[]) columns[column];
+    }
+
+    /**
+     * Returns the array that holds the values of the specified {@code double} column.
+     * The values of the rows are at indices from {@code 0} to {@code size() - 1}.
+     *
+     * @param  column index of the column
+     * @return the array that holds the values of the column
+     * @throws IndexOutOfBoundsException if the column index is out of bounds
+     * @throws IllegalArgumentException if the column is not a {@code double} column
+     */
+    public double[] getDoubleColumn(int column) {
+        checkColumn(column, ColumnType.DOUBLE);
+        return (double[]) columns[column];
+    }
+
+    /**
+     * Gets the value of the specified {@code int} column in the specified row
+     *
+     * @param  row index of the row
+     * @param  column index of the column
+     * @return the value
+     * @throws IndexOutOfBoundsException if the row or column index is out of bounds
+     * @throws IllegalArgumentException if the column is not an {@code int} column
+     */
+    public int getInt(int row, int column) {
+        checkIndex(row);
+        return getIntColumn(column)[row];
+    }
+
+    /**
+     * Gets the value of the specified {@code long} column in the specified row
+     *
+     * @param  row index of the row
+     * @param  column index of the column
+     * @return the value
+     * @throws IndexOutOfBoundsException if the row or column index is out of bounds
+     * @throws IllegalArgumentException if the column is not a {@code long} column
+     */
+    public long getLong(int row, int column) {
+        checkIndex(row);
+        return getLongColumn(column)[row];
+    }
+
+    /**
+     * Gets the value of the specified {@code double} column in the specified row
+     *
+     * @param  row index of the row
+     * @param  column index of the column
+     * @return the value
+     * @throws IndexOutOfBoundsException if the row or column index is out of bounds
+     * @throws IllegalArgumentException if the column is not a {@code double} column
+     */
+    public double getDouble(int row, int column) {
+        checkIndex(row);
+        return getDoubleColumn(column)[row];
+    }
+
+    /**
+     * Replaces the value of the specified {@code int} column in the specified row
+     *
+     * @param  row index of the row
+     * @param  column index of the column
+     * @param  value the new value
+     * @return the previous value
+     * @throws IndexOutOfBoundsException if the row or column index is out of bounds
+     * @throws IllegalArgumentException if the column is not an {@code int} column
+     */
+    public int setInt(int row, int column, int value) {
+        checkIndex(row);
+        int[] values = getIntColumn(column);
+        int oldValue = values[row];
+        values[row] = value;
+        return oldValue;
+    }
+
+    /**
+     * Replaces the value of the specified {@code long} column in the specified row
+     *
+     * @param  row index of the row
+     * @param  column index of the column
+     * @param  value the new value
+     * @return the previous value
+     * @throws IndexOutOfBoundsException if the row or column index is out of bounds
+     * @throws IllegalArgumentException if the column is not a {@code long} column
+     */
+    public long setLong(int row, int column, long value) {
+        checkIndex(row);
+        long[] values = getLongColumn(column);
+        long oldValue = values[row];
+        values[row] = value;
+        return oldValue;
+    }
+
+    /**
+     * Replaces the value of the specified {@code double} column in the specified row
+     *
+     * @param  row index of the row
+     * @param  column index of the column
+     * @param  value the new value
+     * @return the previous value
+     * @throws IndexOutOfBoundsException if the row or column index is out of bounds
+     * @throws IllegalArgumentException if the column is not a {@code double} column
+     */
+    public double setDouble(int row, int column, double value) {
+        checkIndex(row);
+        double[] values = getDoubleColumn(column);
+        double oldValue = values[row];
+        values[row] = value;
+        return oldValue;
+    }
+
+    /**
+     * Gets the values of the specified row: an {@link Integer}, a {@link Long} or a {@link Double}
+     * for each column, according to its type.
+     *
+     * @param  row index of the row
+     * @return the values of the row
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    public Number[] get(int row) {
+        checkIndex(row);
+        Number[] values = new Number[types.length];
+        for (int column = 0; column < types.length; column++)
+            values[column] = switch (types[column]) {
+                case INT -> ((int[]) columns[column])[row];
+                case LONG -> ((long[]) columns[column])[row];
+                case DOUBLE -> ((double[]) columns[column])[row];
+            };
+        return values;
+    }
+
+    /**
+     * Replaces the values of the specified row. Each value is converted to the type of its column
+     * as by {@link Number#intValue()}, {@link Number#longValue()} or {@link Number#doubleValue()}.
+     *
+     * @param  row index of the row to replace
+     * @param  values the new values, one for each column
+     * @return the previous values of the row
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     * @throws IllegalArgumentException if the number of values differs from the number of columns
+     * @throws NullPointerException if any of the values is {@code null}
+     */
+    public Number[] set(int row, Number... values) {
+        checkValues(values);
+        Number[] oldValues = get(row);
+        store(row, values);
+        return oldValues;
+    }
+
+    /**
+     * Adds a row with the specified values to the end of this list. Each value is converted to
+     * the type of its column as by {@link Number#intValue()}, {@link Number#longValue()} or
+     * {@link Number#doubleValue()}.
+     *
+     * @param  values the values of the row, one for each column
+     * @return {@code true} if the addition was successful
+     * @throws IllegalArgumentException if the number of values differs from the number of columns
+     * @throws NullPointerException if any of the values is {@code null}
+     */
+    public boolean add(Number... values) {
+        checkValues(values);
+        checkFreeSpace();
+        store(size++, values);
+        return true;
+    }
+
+    /**
+     * Inserts a row with the specified values at the specified {@code index} in this list.
+     * Shifts the row currently at that position and any subsequent rows down.
+     *
+     * @param  index index at which the row is to be inserted
+     * @param  values the values of the row, one for each column
+     * @return {@code true} if the insertion was successful
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @throws IllegalArgumentException if the number of values differs from the number of columns
+     * @throws NullPointerException if any of the values is {@code null}
+     */
+    public boolean insert(int index, Number... values) {
+        checkIndex(index);
+        checkValues(values);
+        checkFreeSpace();
+        for (Object column : columns)
+            System.arraycopy(column, index, column, index + 1, size - index);
+        store(index, values);
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the row at the specified {@code index} in this list.
+     * Shifts any subsequent rows up.
+     *
+     * @param  index the index of the row to be removed
+     * @return the values of the removed row
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Number[] remove(int index) {
+        Number[] oldValues = get(index);
+        if (size - 1 > index)
+            for (Object column : columns)
+                System.arraycopy(column, index + 1, column, index, size - 1 - index);
+        size--;
+        return oldValues;
+    }
+
+    /**
+     * Removes all rows from this list.
+     */
+    public void removeAll() {
+        size = 0;
+    }
+
+    /**
+     * Returns the indices of the rows whose value in the specified {@code int} column matches
+     * the {@code predicate}, in ascending order.
+     *
+     * @param  column index of the column
+     * @param  predicate the condition for the values of the column
+     * @return the indices of the matching rows
+     * @throws IndexOutOfBoundsException if the column index is out of bounds
+     * @throws IllegalArgumentException if the column is not an {@code int} column
+     */
+    public int[] filterInt(int column, IntPredicate predicate) {
+        int[] values = getIntColumn(column);
+        int[] rows = new int[size];
+        int count = 0;
+        for (int row = 0; row < size; row++)
+            if (predicate.test(values[row]))
+                rows[count++] = row;
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Returns the indices of the rows whose value in the specified {@code long} column matches
+     * the {@code predicate}, in ascending order.
+     *
+     * @param  column index of the column
+     * @param  predicate the condition for the values of the column
+     * @return the indices of the matching rows
+     * @throws IndexOutOfBoundsException if the column index is out of bounds
+     * @throws IllegalArgumentException if the column is not a {@code long} column
+     */
+    public int[] filterLong(int column, LongPredicate predicate) {
+        long[] values = getLongColumn(column);
+        int[] rows = new int[size];
+        int count = 0;
+        for (int row = 0; row < size; row++)
+            if (predicate.test(values[row]))
+                rows[count++] = row;
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Returns the indices of the rows whose value in the specified {@code double} column matches
+     * the {@code predicate}, in ascending order.
+     *
+     * @param  column index of the column
+     * @param  predicate the condition for the values of the column
+     * @return the indices of the matching rows
+     * @throws IndexOutOfBoundsException if the column index is out of bounds
+     * @throws IllegalArgumentException if the column is not a {@code double} column
+     */
+    public int[] filterDouble(int column, DoublePredicate predicate) {
+        double[] values = getDoubleColumn(column);
+        int[] rows = new int[size];
+        int count = 0;
+        for (int row = 0; row < size; row++)
+            if (predicate.test(values[row]))
+                rows[count++] = row;
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Sorts the rows of this list into ascending order of the values in the specified key columns:
+     * by the first key column, rows with equal values in it by the second key column, and so on.
+     * Rows that are equal in all key columns keep their order.
+     *
+     * <p>The sort compares only the arrays of the key columns. It sorts an array of row indices
+     * by merge sort, which takes O(n*log n) comparisons in the worst case, and then moves the values
+     * of every column to their new positions in one pass. With a single key column, the row
+     * indices are sorted together with copies of their keys instead, so the sort does not look up
+     * the column for each comparison.</p>
+     *
+     * @param  keyColumns indices of the key columns, from the most significant
+     * @throws IndexOutOfBoundsException if a column index is out of bounds
+     * @throws IllegalArgumentException if no key columns are specified
+     */
+    public void sortBy(int... keyColumns) {
+        if (keyColumns.length == 0)
+            throw new IllegalArgumentException("No key columns");
+        for (int column : keyColumns)
+            Objects.checkIndex(column, types.length);
+        int[] order;
+        if (keyColumns.length == 1) {
+            order = orderBy(keyColumns[0]);
+        } else {
+            order = new int[size];
+            for (int row = 0; row < size; row++)
+                order[row] = row;
+            mergeSort(order, order.clone(), 0, size, keyColumns);
+        }
+        for (int column = 0; column < columns.length; column++)
+            columns[column] = permute(columns[column], order);
+    }
+
+    /**
+     * Returns the row indices in ascending order of the values in one key column, rows with equal
+     * values in ascending order of their indices.
+     *
+     * <p>The values are turned into {@code long} keys with the same order, and each key is sorted
+     * together with its row index as a pair stored in consecutive memory. If the keys span at most
+     * 2^32 values, as {@code int} keys always do, a pair fits in one {@code long}: the key minus
+     * the smallest key in the upper half and the row index in the lower half. Such pairs are sorted
+     * by {@link PrimitiveArrays#quickSort(long[], int, int)}, and as no two pairs are equal, equal
+     * keys stay in the order of their rows. Wider keys alternate with the row indices in an array
+     * sorted by merge sort.</p>
+     *
+     * @param keyColumn index of the key column
+     * @return the row indices in the sorted order
+     */
+    private int[] orderBy(int keyColumn) {
+        long[] keys = sortableKeys(keyColumn);
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int row = 0; row < size; row++) {
+            min = Math.min(min, keys[row]);
+            max = Math.max(max, keys[row]);
+        }
+        int[] order = new int[size];
+        if (Long.compareUnsigned(max - min, 0xFFFFFFFFL) <= 0) {
+            // The sign bit is flipped, so that the signed order of the pairs is the unsigned one
+            for (int row = 0; row < size; row++)
+                keys[row] = ((keys[row] - min) << 32 | row) ^ Long.MIN_VALUE;
+            PrimitiveArrays.quickSort(keys, 0, size);
+            for (int i = 0; i < size; i++)
+                order[i] = (int) keys[i];
+            return order;
+        }
+        long[] pairs = new long[2 * size];
+        for (int row = 0; row < size; row++) {
+            pairs[2 * row] = keys[row];
+            pairs[2 * row + 1] = row;
+        }
+        mergeSort(pairs, pairs.clone(), 0, size);
+        for (int i = 0; i < size; i++)
+            order[i] = (int) pairs[2 * i + 1];
+        return order;
+    }
+
+    /**
+     * Returns the values of the first {@code size} rows of the column as {@code long} keys in the
+     * same order: {@code int} and {@code long} values as they are, and {@code double} values as
+     * their bits with all bits but the sign flipped for negative values, which orders them as
+     * {@link Double#compare} does.
+     *
+     * @param column index of the column
+     * @return the keys
+     */
+    private long[] sortableKeys(int column) {
+        long[] keys = new long[size];
+        switch (types[column]) {
+            case INT -> {
+                int[] values = (int[]) columns[column];
+                for (int row = 0; row < size; row++)
+                    keys[row] = values[row];
+            }
+            case LONG -> System.arraycopy(columns[column], 0, keys, 0, size);
+            case DOUBLE -> {
+                double[] values = (double[]) columns[column];
+                for (int row = 0; row < size; row++) {
+                    long bits = Double.doubleToLongBits(values[row]);
+                    keys[row] = bits ^ (bits >> 63 & Long.MAX_VALUE);
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Sorts the pairs {@code pairs[2*from..2*to)} of a key and a row index by the key, using
+     * {@code buffer} (a copy of {@code pairs}) as the second array. Pairs with equal keys keep
+     * their order.
+     *
+     * @param pairs keys at even indices, each followed by its row index
+     * @param buffer an array with the same contents as {@code pairs}
+     * @param from the index of the first pair (inclusive)
+     * @param to the index of the last pair (exclusive)
+     */
+    private static void mergeSort(long[] pairs, long[] buffer, int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                long key = pairs[2 * i];
+                long row = pairs[2 * i + 1];
+                int j = i - 1;
+                while (j >= from && pairs[2 * j] > key) {
+                    pairs[2 * j + 2] = pairs[2 * j];
+                    pairs[2 * j + 3] = pairs[2 * j + 1];
+                    j--;
+                }
+                pairs[2 * j + 2] = key;
+                pairs[2 * j + 3] = row;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(buffer, pairs, from, middle);
+        mergeSort(buffer, pairs, middle, to);
+        int i = from;
+        int j = middle;
+        for (int k = from; k < to; k++) {
+            int next = j == to || i < middle && buffer[2 * i] <= buffer[2 * j] ? i++ : j++;
+            pairs[2 * k] = buffer[2 * next];
+            pairs[2 * k + 1] = buffer[2 * next + 1];
+        }
+    }
+
+    /**
+     * Sorts {@code order[from..to)} by merge sort, using {@code buffer} (a copy of {@code order})
+     * as the second array.
+     *
+     * @param order the row indices to be sorted
+     * @param buffer an array with the same contents as {@code order}
+     * @param from the first index (inclusive)
+     * @param to the last index (exclusive)
+     * @param keyColumns indices of the key columns
+     */
+    private void mergeSort(int[] order, int[] buffer, int from, int to, int[] keyColumns) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int row = order[i];
+                int j = i - 1;
+                while (j >= from && compareRows(order[j], row, keyColumns) > 0) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = row;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(buffer, order, from, middle, keyColumns);
+        mergeSort(buffer, order, middle, to, keyColumns);
+        int i = from;
+        int j = middle;
+        for (int k = from; k < to; k++) {
+            if (j == to || i < middle && compareRows(buffer[i], buffer[j], keyColumns) <= 0)
+                order[k] = buffer[i++];
+            else
+                order[k] = buffer[j++];
+        }
+    }
+
+    /**
+     * Compares two rows by the values in the key columns.
+     *
+     * @param first index of the first row
+     * @param second index of the second row
+     * @param keyColumns indices of the key columns
+     * @return a negative integer, zero, or a positive integer as the first row
+     *         is less than, equal to, or greater than the second row
+     */
+    private int compareRows(int first, int second, int[] keyColumns) {
+        for (int column : keyColumns) {
+            int result = switch (types[column]) {
+                case INT -> Integer.compare(((int[]) columns[column])[first], ((int[]) columns[column])[second]);
+                case LONG -> Long.compare(((long[]) columns[column])[first], ((long[]) columns[column])[second]);
+                case DOUBLE -> Double.compare(((double[]) columns[column])[first], ((double[]) columns[column])[second]);
+            };
+            if (result != 0)
+                return result;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a new array of the same type and length as {@code column}, whose element {@code i}
+     * is the element {@code order[i]} of {@code column}.
+     *
+     * @param column the array of a column
+     * @param order the new order of the rows
+     * @return the reordered array
+     */
+    private Object permute(Object column, int[] order) {
+        if (column instanceof int[] values) {
+            int[] result = new int[values.length];
+            for (int i = 0; i < size; i++)
+                result[i] = values[order[i]];
+            return result;
+        }
+        if (column instanceof long[] values) {
+            long[] result = new long[values.length];
+            for (int i = 0; i < size; i++)
+                result[i] = values[order[i]];
+            return result;
+        }
+        double[] values = (double[]) column;
+        double[] result = new double[values.length];
+        for (int i = 0; i < size; i++)
+            result[i] = values[order[i]];
+        return result;
+    }
+
+    /**
+     * Writes the values to the specified row, converting them to the types of the columns.
+     *
+     * @param row index of the row
+     * @param values the values, one for each column
+     */
+    private void store(int row, Number[] values) {
+        for (int column = 0; column < types.length; column++) {
+            switch (types[column]) {
+                case INT -> ((int[]) columns[column])[row] = values[column].intValue();
+                case LONG -> ((long[]) columns[column])[row] = values[column].longValue();
+                case DOUBLE -> ((double[]) columns[column])[row] = values[column].doubleValue();
+            }
+        }
+    }
+
+    /**
+     * Checks that there is one non-null value for each column.
+     *
+     * @param values the values of a row
+     * @throws IllegalArgumentException if the number of values differs from the number of columns
+     * @throws NullPointerException if any of the values is {@code null}
+     */
+    private void checkValues(Number[] values) {
+        if (values.length != types.length)
+            throw new IllegalArgumentException("Expected " + types.length + " values, got " + values.length);
+        for (Number value : values)
+            Objects.requireNonNull(value);
+    }
+
+    /**
+     * Checks if the {@code index} is within the bounds of the range from
+     * {@code 0} (inclusive) to {@code size} (exclusive).
+     *
+     * @param index the index
+     * @throws IndexOutOfBoundsException if the {@code index} is out of bounds
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index);
+    }
+
+    /**
+     * Checks that the column exists and has the specified type.
+     *
+     * @param column index of the column
+     * @param type the expected type
+     * @throws IndexOutOfBoundsException if the column index is out of bounds
+     * @throws IllegalArgumentException if the column has another type
+     */
+    private void checkColumn(int column, ColumnType type) {
+        if (columnType(column) != type)
+            throw new IllegalArgumentException("Column " + column + " is " + types[column] + ", not " + type);
+    }
+
+    /**
+     * Checks for free space in the list.
+     */
+    private void checkFreeSpace() {
+        if (size == capacity)
+            increase();
+    }
+
+    /**
+     * Increases the capacity of all columns by 1.5 times.
+     */
+    private void increase() {
+        capacity = capacity > 0 ? CustomArrayList.newCapacity(capacity) : DEFAULT_CAPACITY;
+        for (int column = 0; column < columns.length; column++)
+            columns[column] = switch (types[column]) {
+                case INT -> Arrays.copyOf((int[]) columns[column], capacity);
+                case LONG -> Arrays.copyOf((long[]) columns[column], capacity);
+                case DOUBLE -> Arrays.copyOf((double[]) columns[column], capacity);
+            };
+    }
+
+    /**
+     * Creates the array of a column.
+     *
+     * @param type the type of the column
+     * @param capacity the length of the array
+     * @return the array
+     */
+    private static Object newColumn(ColumnType type, int capacity) {
+        return switch (type) {
+            case INT -> new int[capacity];
+            case LONG -> new long[capacity];
+            case DOUBLE -> new double[capacity];
+        };
+    }
+
+    /**
+     * Compares the specified object with this list for equality.
+     *
+     * @param o object to compare for equality
+     * @return  Returns true if and only if the specified object is also a columnar list, both lists
+     *          have the same column types and the same number of rows, and all corresponding values
+     *          in the two lists are equal.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CustomColumnarList that = (CustomColumnarList) o;
+        if (size != that.size || !Arrays.equals(types, that.types)) return false;
+        for (int column = 0; column < columns.length; column++) {
+            boolean equal = switch (types[column]) {
+                case INT -> Arrays.equals((int[]) columns[column], 0, size, (int[]) that.columns[column], 0, size);
+                case LONG -> Arrays.equals((long[]) columns[column], 0, size, (long[]) that.columns[column], 0, size);
+                case DOUBLE -> Arrays.equals((double[]) columns[column], 0, size, (double[]) that.columns[column], 0, size);
+            };
+            if (!equal) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the hash code value for this list.
+     */
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(size);
+        result = 31 * result + Arrays.hashCode(types);
+        for (int row = 0; row < size; row++)
+            result = 31 * result + Arrays.hashCode(get(row));
+        return result;
+    }
+
+    /**
+     * @return string representation of the list
+     */
+    @Override
+    public String toString() {
+        StringBuilder rows = new StringBuilder("[");
+        for (int row = 0; row < size; row++) {
+            if (row > 0)
+                rows.append(", ");
+            rows.append(Arrays.toString(get(row)));
+        }
+        return "CustomColumnarList{" +
+                "types=" + Arrays.toString(types) +
+                ", rows=" + rows.append(']') +
+                ", size=" + size +
+                '}';
+    }
+}
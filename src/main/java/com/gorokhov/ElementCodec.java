@@ -0,0 +1,169 @@
+package com.gorokhov;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.*;
+
+/**
+ * <p>{@code ElementCodec} converts the elements of a {@link CustomArrayList} to and from
+ * the binary format of {@link CustomArrayListIO}. Codecs for the wrappers of all primitive types
+ * and for {@link String} are provided as constants of this interface.</p>
+ *
+ * <p>A codec never receives {@code null}: {@code null} elements are recorded separately
+ * by {@link CustomArrayListIO}, so a codec only has to handle non-null values.</p>
+ *
+ * <p>The {@code id} of a codec is written to the header of the stream and is checked when the list
+ * is read back. Ids from {@code 0} to {@code 63} are reserved for the codecs of this interface;
+ * other codecs must use ids from {@code 64} to {@code 127}.</p>
+ *
+ * @param   <E> the type of elements
+ *
+ * @see     CustomArrayListIO
+ * @author  Dmitrii Gorokhov
+ */
+public interface ElementCodec<E> {
+
+    /**
+     * Codec for {@link Byte} elements, one byte each.
+     */
+    ElementCodec<Byte> BYTE = fixed(1, Byte.BYTES, (b, e) -> b.put(e), ByteBuffer::get);
+
+    /**
+     * Codec for {@link Short} elements, two bytes each.
+     */
+    ElementCodec<Short> SHORT = fixed(2, Short.BYTES, (b, e) -> b.putShort(e), ByteBuffer::getShort);
+
+    /**
+     * Codec for {@link Character} elements, two bytes each.
+     */
+    ElementCodec<Character> CHARACTER = fixed(3, Character.BYTES, (b, e) -> b.putChar(e), ByteBuffer::getChar);
+
+    /**
+     * Codec for {@link Integer} elements, four bytes each.
+     */
+    ElementCodec<Integer> INTEGER = fixed(4, Integer.BYTES, (b, e) -> b.putInt(e), ByteBuffer::getInt);
+
+    /**
+     * Codec for {@link Long} elements, eight bytes each.
+     */
+    ElementCodec<Long> LONG = fixed(5, Long.BYTES, (b, e) -> b.putLong(e), ByteBuffer::getLong);
+
+    /**
+     * Codec for {@link Float} elements, four bytes each.
+     */
+    ElementCodec<Float> FLOAT = fixed(6, Float.BYTES, (b, e) -> b.putFloat(e), ByteBuffer::getFloat);
+
+    /**
+     * Codec for {@link Double} elements, eight bytes each.
+     */
+    ElementCodec<Double> DOUBLE = fixed(7, Double.BYTES, (b, e) -> b.putDouble(e), ByteBuffer::getDouble);
+
+    /**
+     * Codec for {@link Boolean} elements, one byte each.
+     */
+    ElementCodec<Boolean> BOOLEAN = fixed(8, 1, (b, e) -> b.put(e ? (byte) 1 : 0), b -> b.get() != 0);
+
+    /**
+     * Codec for {@link String} elements: the length of the UTF-8 encoding in four bytes,
+     * followed by the encoding itself.
+     */
+    ElementCodec<String> STRING = new ElementCodec<>() {
+        @Override
+        public int id() {
+            return 9;
+        }
+
+        @Override
+        public int maxEncodedSize(String element) {
+            return Integer.BYTES + element.length() * 3;
+        }
+
+        @Override
+        public void encode(String element, ByteBuffer buffer) {
+            byte[] bytes = element.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+
+        @Override
+        public String decode(ByteBuffer buffer) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining())
+                throw new IllegalArgumentException("Illegal String length: " + length);
+            String element = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return element;
+        }
+    };
+
+    /**
+     * Returns the id of this codec, which is written to the header of the stream.
+     *
+     * @return the id of this codec, from {@code 0} to {@code 127}
+     */
+    int id();
+
+    /**
+     * Returns the maximum number of bytes that {@code encode} writes for the specified element.
+     *
+     * @param element the element to be encoded, not {@code null}
+     * @return the maximum number of bytes needed to encode the element
+     */
+    int maxEncodedSize(E element);
+
+    /**
+     * Writes the specified element at the current position of the {@code buffer}. The buffer
+     * has at least {@link #maxEncodedSize(Object)} bytes remaining.
+     *
+     * @param element the element to be encoded, not {@code null}
+     * @param buffer the buffer to write to
+     */
+    void encode(E element, ByteBuffer buffer);
+
+    /**
+     * Reads one element from the current position of the {@code buffer}. The buffer is backed
+     * by an accessible array.
+     *
+     * @param buffer the buffer to read from
+     * @return the decoded element
+     * @throws java.nio.BufferUnderflowException if the buffer ends before the element
+     * @throws IllegalArgumentException if the bytes do not encode an element
+     */
+    E decode(ByteBuffer buffer);
+
+    /**
+     * Creates a codec for elements that are always encoded with the same number of bytes.
+     *
+     * @param   <E> the type of elements
+     * @param   id the id of the codec
+     * @param   size the number of bytes of each element
+     * @param   encoder writes an element to the buffer
+     * @param   decoder reads an element from the buffer
+     * @return  the codec
+     */
+    private static <E> ElementCodec<E> fixed(int id, int size, BiConsumer<ByteBuffer, E> encoder,
+                                             Function<ByteBuffer, E> decoder) {
+        return new ElementCodec<>() {
+            @Override
+            public int id() {
+                return id;
+            }
+
+            @Override
+            public int maxEncodedSize(E element) {
+                return size;
+            }
+
+            @Override
+            public void encode(E element, ByteBuffer buffer) {
+                encoder.accept(buffer, element);
+            }
+
+            @Override
+            public E decode(ByteBuffer buffer) {
+                return decoder.apply(buffer);
+            }
+        };
+    }
+}
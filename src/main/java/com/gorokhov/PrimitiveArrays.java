@@ -0,0 +1,598 @@
+package com.gorokhov;
+
+import java.util.*;
+
+/**
+ * <p>{@code PrimitiveArrays} contains search, aggregation and sorting methods for ranges of
+ * {@code int}, {@code long} and {@code double} arrays. It is intended for lists and columns backed
+ * by primitive arrays, where the elements of the list occupy the range from {@code 0} to
+ * {@code size} of the backing array.</p>
+ *
+ * <p>When the {@code jdk.incubator.vector} module is available at runtime (the library is built
+ * with the {@code vector} Maven profile and the application is started with
+ * {@code --add-modules jdk.incubator.vector}), the methods process several elements per
+ * instruction using the Vector API. Otherwise, they fall back to a plain loop over the elements.
+ * Both implementations return the same results.</p>
+ *
+ * <p>{@code double} values are compared with the {@code ==} operator, so {@code NaN} is never
+ * found and {@code -0.0} is equal to {@code 0.0}. The {@code min} and {@code max} methods follow
+ * {@link Math#min(double, double)} and {@link Math#max(double, double)}.</p>
+ *
+ * @see     CustomArrayList
+ * @author  Dmitrii Gorokhov
+ */
+public final class PrimitiveArrays {
+
+    /**
+     * Name of the module that provides the Vector API.
+     */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * Name of the {@link PrimitiveOps} implementation that uses the Vector API.
+     */
+    private static final String VECTOR_OPS = "com.gorokhov.VectorPrimitiveOps";
+
+    /**
+     * The implementation all methods delegate to.
+     */
+    private static final PrimitiveOps OPS = loadOps();
+
+    private PrimitiveArrays() {
+    }
+
+    /**
+     * Returns {@code true} if the methods of this class use the Vector API.
+     *
+     * @return {@code true} if the methods of this class use the Vector API, and {@code false}
+     *         if they fall back to the scalar implementation
+     */
+    public static boolean isVectorized() {
+        return OPS.getClass() != ScalarPrimitiveOps.class;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the {@code key} in the specified range
+     * of the {@code array}, or -1 if the range does not contain the {@code key}.
+     *
+     * @param   array the array to be searched
+     * @param   fromIndex the index of the first element (inclusive) to be searched
+     * @param   toIndex the index of the last element (exclusive) to be searched
+     * @param   key the value to be searched for
+     * @return  the index of the first occurrence of the {@code key}, or -1 if it is not found
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     */
+    public static int indexOf(int[] array, int fromIndex, int toIndex, int key) {
+        Objects.checkFromToIndex(fromIndex, toIndex, array.length);
+        return OPS.indexOf(array, fromIndex, toIndex, key);
+    }
+
+    /**
+     * Returns the index of the first occurrence of the {@code key} in the specified range
+     * of the {@code array}, or -1 if the range does not contain the {@code key}.
+     *
+     * @param   array the array to be searched
+     * @param   fromIndex the index of the first element (inclusive) to be searched
+     * @param   toIndex the index of the last element (exclusive) to be searched
+     * @param   key the value to be searched for
+     * @return  the index of the first occurrence of the {@code key}, or -1 if it is not found
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     */
+    public static int indexOf(long[] array, int fromIndex, int toIndex, long key) {
+        Objects.checkFromToIndex(fromIndex, toIndex, array.length);
+        return OPS.indexOf(array, fromIndex, toIndex, key);
+    }
+
+    /**
+     * Returns the index of the first occurrence of the {@code key} in the specified range
+     * of the {@code array}, or -1 if the range does not contain the {@code key}.
+     *
+     * @param   array the array to be searched
+     * @param   fromIndex the index of the first element (inclusive) to be searched
+     * @param   toIndex the index of the last element (exclusive) to be searched
+     * @param   key the value to be searched for
+     * @return  the index of the first occurrence of the {@code key}, or -1 if it is not found
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     */
+    public static int indexOf(double[] array, int fromIndex, int toIndex, double key) {
+        Objects.checkFromToIndex(fromIndex, toIndex, array.length);
+        return OPS.indexOf(array, fromIndex, toIndex, key);
+    }
+
+    /**
+     * Returns the number of occurrences of the {@code key} in the specified range of the {@code array}.
+     *
+     * @param   array the array to be searched
+     * @param   fromIndex the index of the first element (inclusive) to be searched
+     * @param   toIndex the index of the last element (exclusive) to be searched
+     * @param   key the value to be counted
+     * @return  the number of occurrences of the {@code key}
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     */
+    public static int count(int[] array, int fromIndex, int toIndex, int key) {
+        Objects.checkFromToIndex(fromIndex, toIndex, array.length);
+        return OPS.count(array, fromIndex, toIndex, key);
+    }
+
+    /**
+     * Returns the number of occurrences of the {@code key} in the specified range of the {@code array}.
+     *
+     * @param   array the array to be searched
+     * @param   fromIndex the index of the first element (inclusive) to be searched
+     * @param   toIndex the index of the last element (exclusive) to be searched
+     * @param   key the value to be counted
+     * @return  the number of occurrences of the {@code key}
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     */
+    public static int count(long[] array, int fromIndex, int toIndex, long key) {
+        Objects.checkFromToIndex(fromIndex, toIndex, array.length);
+        return OPS.count(array, fromIndex, toIndex, key);
+    }
+
+    /**
+     * Returns the number of occurrences of the {@code key} in the specified range of the {@code array}.
+     *
+     * @param   array the array to be searched
+     * @param   fromIndex the index of the first element (inclusive) to be searched
+     * @param   toIndex the index of the last element (exclusive) to be searched
+     * @param   key the value to be counted
+     * @return  the number of occurrences of the {@code key}
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     */
+    public static int count(double[] array, int fromIndex, int toIndex, double key) {
+        Objects.checkFromToIndex(fromIndex, toIndex, array.length);
+        return OPS.count(array, fromIndex, toIndex, key);
+    }
+
+    /**
+     * Returns the smallest value in the specified range of the {@code array}.
+     *
+     * @param   array the array to be searched
+     * @param   fromIndex the index of the first element (inclusive) to be searched
+     * @param   toIndex the index of the last element (exclusive) to be searched
+     * @return  the smallest value in the range
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     * @throws  NoSuchElementException if the range is empty
+     */
+    public static int min(int[] array, int fromIndex, int toIndex) {
+        checkNotEmpty(fromIndex, toIndex, array.length);
+        return OPS.min(array, fromIndex, toIndex);
+    }
+
+    /**
+     * Returns the smallest value in the specified range of the {@code array}.
+     *
+     * @param   array the array to be searched
+     * @param   fromIndex the index of the first element (inclusive) to be searched
+     * @param   toIndex the index of the last element (exclusive) to be searched
+     * @return  the smallest value in the range
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     * @throws  NoSuchElementException if the range is empty
+     */
+    public static long min(long[] array, int fromIndex, int toIndex) {
+        checkNotEmpty(fromIndex, toIndex, array.length);
+        return OPS.min(array, fromIndex, toIndex);
+    }
+
+    /**
+     * Returns the smallest value in the specified range of the {@code array}.
+     *
+     * @param   array the array to be searched
+     * @param   fromIndex the index of the first element (inclusive) to be searched
+     * @param   toIndex the index of the last element (exclusive) to be searched
+     * @return  the smallest value in the range
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     * @throws  NoSuchElementException if the range is empty
+     */
+    public static double min(double[] array, int fromIndex, int toIndex) {
+        checkNotEmpty(fromIndex, toIndex, array.length);
+        return OPS.min(array, fromIndex, toIndex);
+    }
+
+    /**
+     * Returns the largest value in the specified range of the {@code array}.
+     *
+     * @param   array the array to be searched
+     * @param   fromIndex the index of the first element (inclusive) to be searched
+     * @param   toIndex the index of the last element (exclusive) to be searched
+     * @return  the largest value in the range
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     * @throws  NoSuchElementException if the range is empty
+     */
+    public static int max(int[] array, int fromIndex, int toIndex) {
+        checkNotEmpty(fromIndex, toIndex, array.length);
+        return OPS.max(array, fromIndex, toIndex);
+    }
+
+    /**
+     * Returns the largest value in the specified range of the {@code array}.
+     *
+     * @param   array the array to be searched
+     * @param   fromIndex the index of the first element (inclusive) to be searched
+     * @param   toIndex the index of the last element (exclusive) to be searched
+     * @return  the largest value in the range
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     * @throws  NoSuchElementException if the range is empty
+     */
+    public static long max(long[] array, int fromIndex, int toIndex) {
+        checkNotEmpty(fromIndex, toIndex, array.length);
+        return OPS.max(array, fromIndex, toIndex);
+    }
+
+    /**
+     * Returns the largest value in the specified range of the {@code array}.
+     *
+     * @param   array the array to be searched
+     * @param   fromIndex the index of the first element (inclusive) to be searched
+     * @param   toIndex the index of the last element (exclusive) to be searched
+     * @return  the largest value in the range
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     * @throws  NoSuchElementException if the range is empty
+     */
+    public static double max(double[] array, int fromIndex, int toIndex) {
+        checkNotEmpty(fromIndex, toIndex, array.length);
+        return OPS.max(array, fromIndex, toIndex);
+    }
+
+    /**
+     * Sorts the specified range of the {@code array} into ascending order by quick sort algorithm.
+     * The partitioning step is the same as in {@link CustomArrayList#quickSort(CustomArrayList)},
+     * but it compares a whole vector of elements with the pivot at once when the Vector API
+     * is available. As there, the pivot is the median of three elements or Tukey's ninther,
+     * and too deep recursion switches to heapsort, so the worst case is O(n*log n).
+     *
+     * @param   array the array to be sorted
+     * @param   fromIndex the index of the first element (inclusive) to be sorted
+     * @param   toIndex the index of the last element (exclusive) to be sorted
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     */
+    public static void quickSort(int[] array, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, array.length);
+        sort(array, fromIndex, toIndex - 1, AdaptiveSort.depthLimit(toIndex - fromIndex));
+    }
+
+    /**
+     * Sorts the specified range of the {@code array} into ascending order by quick sort algorithm.
+     * The partitioning step is the same as in {@link CustomArrayList#quickSort(CustomArrayList)},
+     * but it compares a whole vector of elements with the pivot at once when the Vector API
+     * is available. As there, the pivot is the median of three elements or Tukey's ninther,
+     * and too deep recursion switches to heapsort, so the worst case is O(n*log n).
+     *
+     * @param   array the array to be sorted
+     * @param   fromIndex the index of the first element (inclusive) to be sorted
+     * @param   toIndex the index of the last element (exclusive) to be sorted
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     */
+    public static void quickSort(long[] array, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, array.length);
+        sort(array, fromIndex, toIndex - 1, AdaptiveSort.depthLimit(toIndex - fromIndex));
+    }
+
+    /**
+     * Sorts the specified range of the {@code array} into ascending order by quick sort algorithm.
+     * The order is the same as in {@link Arrays#sort(double[])}: {@code -0.0} is less than
+     * {@code 0.0}, and {@code NaN} is greater than any other value. {@code NaN} values are moved
+     * to the end of the range first and zeros are put in order last, so the partitioning step
+     * compares with the {@code <=} operator exactly as for {@code long} arrays.
+     *
+     * @param   array the array to be sorted
+     * @param   fromIndex the index of the first element (inclusive) to be sorted
+     * @param   toIndex the index of the last element (exclusive) to be sorted
+     * @throws  IndexOutOfBoundsException if the range is out of the bounds of the {@code array}
+     */
+    public static void quickSort(double[] array, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, array.length);
+        int end = toIndex;
+        for (int i = toIndex - 1; i >= fromIndex; i--)
+            if (Double.isNaN(array[i]))
+                ScalarPrimitiveOps.swap(array, i, --end);
+        sort(array, fromIndex, end - 1, AdaptiveSort.depthLimit(end - fromIndex));
+        orderZeros(array, fromIndex, end);
+    }
+
+    /**
+     * Recursively sorts {@code array[first..last]}, see {@code sort} in {@link CustomArrayList}.
+     *
+     * @param   array the array to be sorted.
+     * @param   first the first index of array.
+     * @param   last the last index of array.
+     * @param   depthLimit the number of recursion levels left before switching to heapsort.
+     */
+    private static void sort(int[] array, int first, int last, int depthLimit) {
+        if (first < last) {
+            if (depthLimit == 0) {
+                heapSort(array, first, last);
+                return;
+            }
+            if (last - first > 1)
+                ScalarPrimitiveOps.swap(array, pivotIndex(array, first, last), last);
+            int wallIndex = OPS.partition(array, first, last);
+            sort(array, first, wallIndex - 1, depthLimit - 1);
+            sort(array, wallIndex + 1, last, depthLimit - 1);
+        }
+    }
+
+    /**
+     * Returns the index of the pivot for {@code array[first..last]}, see {@code calculateWallPosition}
+     * in {@link CustomArrayList}.
+     */
+    private static int pivotIndex(int[] array, int first, int last) {
+        if (last - first + 1 < CustomArrayList.NINTHER_THRESHOLD)
+            return medianOfThree(array, first, (first + last) >>> 1, last);
+        int step = (last - first) >>> 3;
+        int middle = (first + last) >>> 1;
+        return medianOfThree(array,
+                medianOfThree(array, first, first + step, first + 2 * step),
+                medianOfThree(array, middle - step, middle, middle + step),
+                medianOfThree(array, last - 2 * step, last - step, last));
+    }
+
+    /**
+     * Returns the index of the median of the elements with indexes {@code a}, {@code b} and {@code c}.
+     */
+    private static int medianOfThree(int[] array, int a, int b, int c) {
+        if (array[a] > array[b]) {
+            int temp = a;
+            a = b;
+            b = temp;
+        }
+        if (array[b] <= array[c])
+            return b;
+        return array[a] > array[c] ? a : c;
+    }
+
+    /**
+     * Sorts {@code array[first..last]} by heapsort.
+     */
+    private static void heapSort(int[] array, int first, int last) {
+        int size = last - first + 1;
+        for (int i = size / 2 - 1; i >= 0; i--)
+            siftDown(array, first, i, size);
+        for (int end = size - 1; end > 0; end--) {
+            ScalarPrimitiveOps.swap(array, first, first + end);
+            siftDown(array, first, 0, end);
+        }
+    }
+
+    /**
+     * Moves the element at position {@code i} of the heap {@code array[first..first + size)} down
+     * until it is not less than its children.
+     */
+    private static void siftDown(int[] array, int first, int i, int size) {
+        int element = array[first + i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && array[first + child + 1] > array[first + child])
+                child++;
+            if (element >= array[first + child])
+                break;
+            array[first + i] = array[first + child];
+            i = child;
+        }
+        array[first + i] = element;
+    }
+
+    /**
+     * Recursively sorts {@code array[first..last]}, see {@code sort} in {@link CustomArrayList}.
+     *
+     * @param   array the array to be sorted.
+     * @param   first the first index of array.
+     * @param   last the last index of array.
+     * @param   depthLimit the number of recursion levels left before switching to heapsort.
+     */
+    private static void sort(long[] array, int first, int last, int depthLimit) {
+        if (first < last) {
+            if (depthLimit == 0) {
+                heapSort(array, first, last);
+                return;
+            }
+            if (last - first > 1)
+                ScalarPrimitiveOps.swap(array, pivotIndex(array, first, last), last);
+            int wallIndex = OPS.partition(array, first, last);
+            sort(array, first, wallIndex - 1, depthLimit - 1);
+            sort(array, wallIndex + 1, last, depthLimit - 1);
+        }
+    }
+
+    /**
+     * Returns the index of the pivot for {@code array[first..last]}, see {@code calculateWallPosition}
+     * in {@link CustomArrayList}.
+     */
+    private static int pivotIndex(long[] array, int first, int last) {
+        if (last - first + 1 < CustomArrayList.NINTHER_THRESHOLD)
+            return medianOfThree(array, first, (first + last) >>> 1, last);
+        int step = (last - first) >>> 3;
+        int middle = (first + last) >>> 1;
+        return medianOfThree(array,
+                medianOfThree(array, first, first + step, first + 2 * step),
+                medianOfThree(array, middle - step, middle, middle + step),
+                medianOfThree(array, last - 2 * step, last - step, last));
+    }
+
+    /**
+     * Returns the index of the median of the elements with indexes {@code a}, {@code b} and {@code c}.
+     */
+    private static int medianOfThree(long[] array, int a, int b, int c) {
+        if (array[a] > array[b]) {
+            int temp = a;
+            a = b;
+            b = temp;
+        }
+        if (array[b] <= array[c])
+            return b;
+        return array[a] > array[c] ? a : c;
+    }
+
+    /**
+     * Sorts {@code array[first..last]} by heapsort.
+     */
+    private static void heapSort(long[] array, int first, int last) {
+        int size = last - first + 1;
+        for (int i = size / 2 - 1; i >= 0; i--)
+            siftDown(array, first, i, size);
+        for (int end = size - 1; end > 0; end--) {
+            ScalarPrimitiveOps.swap(array, first, first + end);
+            siftDown(array, first, 0, end);
+        }
+    }
+
+    /**
+     * Moves the element at position {@code i} of the heap {@code array[first..first + size)} down
+     * until it is not less than its children.
+     */
+    private static void siftDown(long[] array, int first, int i, int size) {
+        long element = array[first + i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && array[first + child + 1] > array[first + child])
+                child++;
+            if (element >= array[first + child])
+                break;
+            array[first + i] = array[first + child];
+            i = child;
+        }
+        array[first + i] = element;
+    }
+
+    /**
+     * Recursively sorts {@code array[first..last]}, see {@code sort} in {@link CustomArrayList}.
+     * The range must not contain {@code NaN}.
+     *
+     * @param   array the array to be sorted.
+     * @param   first the first index of array.
+     * @param   last the last index of array.
+     * @param   depthLimit the number of recursion levels left before switching to heapsort.
+     */
+    private static void sort(double[] array, int first, int last, int depthLimit) {
+        if (first < last) {
+            if (depthLimit == 0) {
+                heapSort(array, first, last);
+                return;
+            }
+            if (last - first > 1)
+                ScalarPrimitiveOps.swap(array, pivotIndex(array, first, last), last);
+            int wallIndex = OPS.partition(array, first, last);
+            sort(array, first, wallIndex - 1, depthLimit - 1);
+            sort(array, wallIndex + 1, last, depthLimit - 1);
+        }
+    }
+
+    /**
+     * Returns the index of the pivot for {@code array[first..last]}, see {@code calculateWallPosition}
+     * in {@link CustomArrayList}.
+     */
+    private static int pivotIndex(double[] array, int first, int last) {
+        if (last - first + 1 < CustomArrayList.NINTHER_THRESHOLD)
+            return medianOfThree(array, first, (first + last) >>> 1, last);
+        int step = (last - first) >>> 3;
+        int middle = (first + last) >>> 1;
+        return medianOfThree(array,
+                medianOfThree(array, first, first + step, first + 2 * step),
+                medianOfThree(array, middle - step, middle, middle + step),
+                medianOfThree(array, last - 2 * step, last - step, last));
+    }
+
+    /**
+     * Returns the index of the median of the elements with indexes {@code a}, {@code b} and {@code c}.
+     */
+    private static int medianOfThree(double[] array, int a, int b, int c) {
+        if (array[a] > array[b]) {
+            int temp = a;
+            a = b;
+            b = temp;
+        }
+        if (array[b] <= array[c])
+            return b;
+        return array[a] > array[c] ? a : c;
+    }
+
+    /**
+     * Sorts {@code array[first..last]} by heapsort.
+     */
+    private static void heapSort(double[] array, int first, int last) {
+        int size = last - first + 1;
+        for (int i = size / 2 - 1; i >= 0; i--)
+            siftDown(array, first, i, size);
+        for (int end = size - 1; end > 0; end--) {
+            ScalarPrimitiveOps.swap(array, first, first + end);
+            siftDown(array, first, 0, end);
+        }
+    }
+
+    /**
+     * Moves the element at position {@code i} of the heap {@code array[first..first + size)} down
+     * until it is not less than its children.
+     */
+    private static void siftDown(double[] array, int first, int i, int size) {
+        double element = array[first + i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && array[first + child + 1] > array[first + child])
+                child++;
+            if (element >= array[first + child])
+                break;
+            array[first + i] = array[first + child];
+            i = child;
+        }
+        array[first + i] = element;
+    }
+
+    /**
+     * The {@code <=} operator does not tell {@code -0.0} from {@code 0.0}, so after sorting the
+     * zeros of the sorted range {@code array[fromIndex..toIndex)} are mixed. Rewrites them with
+     * all negative zeros first.
+     */
+    private static void orderZeros(double[] array, int fromIndex, int toIndex) {
+        int first = fromIndex;
+        int high = toIndex;
+        while (first < high) {
+            int middle = (first + high) >>> 1;
+            if (array[middle] < 0.0)
+                first = middle + 1;
+            else
+                high = middle;
+        }
+        int negativeZeros = 0;
+        int i = first;
+        for (; i < toIndex && array[i] == 0.0; i++)
+            if (Double.doubleToRawLongBits(array[i]) < 0)
+                negativeZeros++;
+        Arrays.fill(array, first, first + negativeZeros, -0.0);
+        Arrays.fill(array, first + negativeZeros, i, 0.0);
+    }
+
+    /**
+     * Checks that the range is within the bounds of the array and is not empty.
+     *
+     * @param fromIndex the index of the first element (inclusive)
+     * @param toIndex the index of the last element (exclusive)
+     * @param length the length of the array
+     * @throws IndexOutOfBoundsException if the range is out of bounds
+     * @throws NoSuchElementException if the range is empty
+     */
+    private static void checkNotEmpty(int fromIndex, int toIndex, int length) {
+        Objects.checkFromToIndex(fromIndex, toIndex, length);
+        if (fromIndex == toIndex)
+            throw new NoSuchElementException("Empty range: " + fromIndex);
+    }
+
+    /**
+     * Chooses the implementation: the vectorized one if the Vector API module is present in
+     * the boot layer and the class was compiled, the scalar one otherwise.
+     *
+     * @return the implementation to delegate to
+     */
+    private static PrimitiveOps loadOps() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (PrimitiveOps) Class.forName(VECTOR_OPS).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // The library was built without the vector profile
+            }
+        }
+        return new ScalarPrimitiveOps();
+    }
+}
@@ -0,0 +1,61 @@
+package com.gorokhov;
+
+/**
+ * <p>Scan and partition kernels over ranges of primitive arrays. {@link PrimitiveArrays} delegates
+ * to one implementation of this interface, chosen once when the class is initialized:
+ * {@link VectorPrimitiveOps} when the {@code jdk.incubator.vector} module is available, and
+ * {@link ScalarPrimitiveOps} otherwise.</p>
+ *
+ * <p>All ranges are half-open ({@code fromIndex} inclusive, {@code toIndex} exclusive) except
+ * for {@code partition}, which, like {@code calculateWallPosition} in {@link CustomArrayList},
+ * takes the inclusive {@code first} and {@code last} indices. Bounds are checked by the caller.</p>
+ *
+ * @author  Dmitrii Gorokhov
+ */
+interface PrimitiveOps {
+
+    int indexOf(int[] array, int fromIndex, int toIndex, int key);
+
+    int indexOf(long[] array, int fromIndex, int toIndex, long key);
+
+    int indexOf(double[] array, int fromIndex, int toIndex, double key);
+
+    int count(int[] array, int fromIndex, int toIndex, int key);
+
+    int count(long[] array, int fromIndex, int toIndex, long key);
+
+    int count(double[] array, int fromIndex, int toIndex, double key);
+
+    int min(int[] array, int fromIndex, int toIndex);
+
+    long min(long[] array, int fromIndex, int toIndex);
+
+    double min(double[] array, int fromIndex, int toIndex);
+
+    int max(int[] array, int fromIndex, int toIndex);
+
+    long max(long[] array, int fromIndex, int toIndex);
+
+    double max(double[] array, int fromIndex, int toIndex);
+
+    /**
+     * Partitions {@code array[first..last]} around the pivot {@code array[last]} so that all
+     * elements less than or equal to the pivot are on the left of it, and returns the final
+     * position of the pivot.
+     */
+    int partition(int[] array, int first, int last);
+
+    /**
+     * Partitions {@code array[first..last]} around the pivot {@code array[last]} so that all
+     * elements less than or equal to the pivot are on the left of it, and returns the final
+     * position of the pivot.
+     */
+    int partition(long[] array, int first, int last);
+
+    /**
+     * Partitions {@code array[first..last]} around the pivot {@code array[last]} so that all
+     * elements less than or equal to the pivot are on the left of it, and returns the final
+     * position of the pivot. The range must not contain {@code NaN}.
+     */
+    int partition(double[] array, int first, int last);
+}
@@ -0,0 +1,161 @@
+package com.gorokhov;
+
+/**
+ * <p>Element-at-a-time implementation of {@link PrimitiveOps}. It is used when the
+ * {@code jdk.incubator.vector} module is not available, and its methods are also used by
+ * {@link VectorPrimitiveOps} to process the tail of a range that does not fill a whole vector.</p>
+ *
+ * @author  Dmitrii Gorokhov
+ */
+class ScalarPrimitiveOps implements PrimitiveOps {
+
+    @Override
+    public int indexOf(int[] array, int fromIndex, int toIndex, int key) {
+        for (int i = fromIndex; i < toIndex; i++)
+            if (array[i] == key)
+                return i;
+        return -1;
+    }
+
+    @Override
+    public int indexOf(long[] array, int fromIndex, int toIndex, long key) {
+        for (int i = fromIndex; i < toIndex; i++)
+            if (array[i] == key)
+                return i;
+        return -1;
+    }
+
+    @Override
+    public int indexOf(double[] array, int fromIndex, int toIndex, double key) {
+        for (int i = fromIndex; i < toIndex; i++)
+            if (array[i] == key)
+                return i;
+        return -1;
+    }
+
+    @Override
+    public int count(int[] array, int fromIndex, int toIndex, int key) {
+        int count = 0;
+        for (int i = fromIndex; i < toIndex; i++)
+            if (array[i] == key)
+                count++;
+        return count;
+    }
+
+    @Override
+    public int count(long[] array, int fromIndex, int toIndex, long key) {
+        int count = 0;
+        for (int i = fromIndex; i < toIndex; i++)
+            if (array[i] == key)
+                count++;
+        return count;
+    }
+
+    @Override
+    public int count(double[] array, int fromIndex, int toIndex, double key) {
+        int count = 0;
+        for (int i = fromIndex; i < toIndex; i++)
+            if (array[i] == key)
+                count++;
+        return count;
+    }
+
+    @Override
+    public int min(int[] array, int fromIndex, int toIndex) {
+        int min = Integer.MAX_VALUE;
+        for (int i = fromIndex; i < toIndex; i++)
+            min = Math.min(min, array[i]);
+        return min;
+    }
+
+    @Override
+    public long min(long[] array, int fromIndex, int toIndex) {
+        long min = Long.MAX_VALUE;
+        for (int i = fromIndex; i < toIndex; i++)
+            min = Math.min(min, array[i]);
+        return min;
+    }
+
+    @Override
+    public double min(double[] array, int fromIndex, int toIndex) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = fromIndex; i < toIndex; i++)
+            min = Math.min(min, array[i]);
+        return min;
+    }
+
+    @Override
+    public int max(int[] array, int fromIndex, int toIndex) {
+        int max = Integer.MIN_VALUE;
+        for (int i = fromIndex; i < toIndex; i++)
+            max = Math.max(max, array[i]);
+        return max;
+    }
+
+    @Override
+    public long max(long[] array, int fromIndex, int toIndex) {
+        long max = Long.MIN_VALUE;
+        for (int i = fromIndex; i < toIndex; i++)
+            max = Math.max(max, array[i]);
+        return max;
+    }
+
+    @Override
+    public double max(double[] array, int fromIndex, int toIndex) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = fromIndex; i < toIndex; i++)
+            max = Math.max(max, array[i]);
+        return max;
+    }
+
+    @Override
+    public int partition(int[] array, int first, int last) {
+        int pivot = array[last];
+        int i = first - 1;
+        for (int j = first; j < last; j++)
+            if (array[j] <= pivot)
+                swap(array, ++i, j);
+        swap(array, i + 1, last);
+        return i + 1;
+    }
+
+    @Override
+    public int partition(long[] array, int first, int last) {
+        long pivot = array[last];
+        int i = first - 1;
+        for (int j = first; j < last; j++)
+            if (array[j] <= pivot)
+                swap(array, ++i, j);
+        swap(array, i + 1, last);
+        return i + 1;
+    }
+
+    @Override
+    public int partition(double[] array, int first, int last) {
+        double pivot = array[last];
+        int i = first - 1;
+        for (int j = first; j < last; j++)
+            if (array[j] <= pivot)
+                swap(array, ++i, j);
+        swap(array, i + 1, last);
+        return i + 1;
+    }
+
+    static void swap(int[] array, int i, int j) {
+        int temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+
+    static void swap(long[] array, int i, int j) {
+        long temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+
+    static void swap(double[] array, int i, int j) {
+        double temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+}
@@ -0,0 +1,45 @@
+package com.gorokhov;
+
+/**
+ * <p>Sorting algorithms that {@link CustomArrayList#sort(CustomArrayList)} can choose from.
+ * The chosen algorithm is returned by the method, so that the caller can see how its data
+ * was sorted.</p>
+ *
+ * @see     CustomArrayList#sort(CustomArrayList)
+ * @see     CustomArrayList#sort(CustomArrayList, java.util.Comparator)
+ * @author  Dmitrii Gorokhov
+ */
+public enum SortEngine {
+
+    /**
+     * Insertion sort, chosen for small lists. Stable.
+     */
+    INSERTION,
+
+    /**
+     * Merging of the ascending and strictly descending runs that are already present in the list,
+     * chosen when the list consists of a few such runs. Takes O(n*log r) comparisons for r runs,
+     * and O(n) for a list that is already sorted. Stable.
+     */
+    RUN_MERGE,
+
+    /**
+     * Counting sort, chosen for {@link Integer} lists in natural ordering whose values span a range
+     * no larger than the size of the list. Takes O(n + range) time and no comparisons. Stable.
+     */
+    COUNTING,
+
+    /**
+     * Quick sort with three-way partitioning (less than, equal to and greater than the pivot),
+     * chosen when the list has many duplicate elements. All elements equal to the pivot are put
+     * in place by one partitioning, so a list with k distinct elements takes O(n*log k) comparisons.
+     * Not stable.
+     */
+    THREE_WAY_QUICK,
+
+    /**
+     * The quick sort of {@link CustomArrayList#quickSort(CustomArrayList)}, chosen when none of
+     * the above applies. Not stable.
+     */
+    QUICK
+}
@@ -0,0 +1,281 @@
+package com.gorokhov;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <p>Implementation of {@link PrimitiveOps} on top of the incubator Vector API. Each loop
+ * processes as many elements per step as fit in the preferred vector shape of the platform,
+ * and the remaining tail of the range is handed over to {@link ScalarPrimitiveOps}.</p>
+ *
+ * <p>This class is compiled only with the {@code vector} Maven profile, which adds the
+ * {@code jdk.incubator.vector} module. {@link PrimitiveArrays} loads it reflectively, so the rest
+ * of the library does not depend on the module.</p>
+ *
+ * @author  Dmitrii Gorokhov
+ */
+class VectorPrimitiveOps extends ScalarPrimitiveOps {
+
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private static final VectorSpecies<Long> LONG_SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private static final VectorSpecies<Double> DOUBLE_SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public int indexOf(int[] array, int fromIndex, int toIndex, int key) {
+        int i = fromIndex;
+        int bound = fromIndex + INT_SPECIES.loopBound(toIndex - fromIndex);
+        for (; i < bound; i += INT_SPECIES.length()) {
+            VectorMask<Integer> found = IntVector.fromArray(INT_SPECIES, array, i)
+                    .compare(VectorOperators.EQ, key);
+            if (found.anyTrue())
+                return i + found.firstTrue();
+        }
+        return super.indexOf(array, i, toIndex, key);
+    }
+
+    @Override
+    public int indexOf(long[] array, int fromIndex, int toIndex, long key) {
+        int i = fromIndex;
+        int bound = fromIndex + LONG_SPECIES.loopBound(toIndex - fromIndex);
+        for (; i < bound; i += LONG_SPECIES.length()) {
+            VectorMask<Long> found = LongVector.fromArray(LONG_SPECIES, array, i)
+                    .compare(VectorOperators.EQ, key);
+            if (found.anyTrue())
+                return i + found.firstTrue();
+        }
+        return super.indexOf(array, i, toIndex, key);
+    }
+
+    @Override
+    public int indexOf(double[] array, int fromIndex, int toIndex, double key) {
+        int i = fromIndex;
+        int bound = fromIndex + DOUBLE_SPECIES.loopBound(toIndex - fromIndex);
+        for (; i < bound; i += DOUBLE_SPECIES.length()) {
+            VectorMask<Double> found = DoubleVector.fromArray(DOUBLE_SPECIES, array, i)
+                    .compare(VectorOperators.EQ, key);
+            if (found.anyTrue())
+                return i + found.firstTrue();
+        }
+        return super.indexOf(array, i, toIndex, key);
+    }
+
+    @Override
+    public int count(int[] array, int fromIndex, int toIndex, int key) {
+        int count = 0;
+        int i = fromIndex;
+        int bound = fromIndex + INT_SPECIES.loopBound(toIndex - fromIndex);
+        for (; i < bound; i += INT_SPECIES.length())
+            count += IntVector.fromArray(INT_SPECIES, array, i)
+                    .compare(VectorOperators.EQ, key)
+                    .trueCount();
+        return count + super.count(array, i, toIndex, key);
+    }
+
+    @Override
+    public int count(long[] array, int fromIndex, int toIndex, long key) {
+        int count = 0;
+        int i = fromIndex;
+        int bound = fromIndex + LONG_SPECIES.loopBound(toIndex - fromIndex);
+        for (; i < bound; i += LONG_SPECIES.length())
+            count += LongVector.fromArray(LONG_SPECIES, array, i)
+                    .compare(VectorOperators.EQ, key)
+                    .trueCount();
+        return count + super.count(array, i, toIndex, key);
+    }
+
+    @Override
+    public int count(double[] array, int fromIndex, int toIndex, double key) {
+        int count = 0;
+        int i = fromIndex;
+        int bound = fromIndex + DOUBLE_SPECIES.loopBound(toIndex - fromIndex);
+        for (; i < bound; i += DOUBLE_SPECIES.length())
+            count += DoubleVector.fromArray(DOUBLE_SPECIES, array, i)
+                    .compare(VectorOperators.EQ, key)
+                    .trueCount();
+        return count + super.count(array, i, toIndex, key);
+    }
+
+    @Override
+    public int min(int[] array, int fromIndex, int toIndex) {
+        IntVector min = IntVector.broadcast(INT_SPECIES, Integer.MAX_VALUE);
+        int i = fromIndex;
+        int bound = fromIndex + INT_SPECIES.loopBound(toIndex - fromIndex);
+        for (; i < bound; i += INT_SPECIES.length())
+            min = min.min(IntVector.fromArray(INT_SPECIES, array, i));
+        return Math.min(min.reduceLanes(VectorOperators.MIN), super.min(array, i, toIndex));
+    }
+
+    @Override
+    public long min(long[] array, int fromIndex, int toIndex) {
+        LongVector min = LongVector.broadcast(LONG_SPECIES, Long.MAX_VALUE);
+        int i = fromIndex;
+        int bound = fromIndex + LONG_SPECIES.loopBound(toIndex - fromIndex);
+        for (; i < bound; i += LONG_SPECIES.length())
+            min = min.min(LongVector.fromArray(LONG_SPECIES, array, i));
+        return Math.min(min.reduceLanes(VectorOperators.MIN), super.min(array, i, toIndex));
+    }
+
+    @Override
+    public double min(double[] array, int fromIndex, int toIndex) {
+        DoubleVector min = DoubleVector.broadcast(DOUBLE_SPECIES, Double.POSITIVE_INFINITY);
+        int i = fromIndex;
+        int bound = fromIndex + DOUBLE_SPECIES.loopBound(toIndex - fromIndex);
+        for (; i < bound; i += DOUBLE_SPECIES.length())
+            min = min.min(DoubleVector.fromArray(DOUBLE_SPECIES, array, i));
+        return Math.min(min.reduceLanes(VectorOperators.MIN), super.min(array, i, toIndex));
+    }
+
+    @Override
+    public int max(int[] array, int fromIndex, int toIndex) {
+        IntVector max = IntVector.broadcast(INT_SPECIES, Integer.MIN_VALUE);
+        int i = fromIndex;
+        int bound = fromIndex + INT_SPECIES.loopBound(toIndex - fromIndex);
+        for (; i < bound; i += INT_SPECIES.length())
+            max = max.max(IntVector.fromArray(INT_SPECIES, array, i));
+        return Math.max(max.reduceLanes(VectorOperators.MAX), super.max(array, i, toIndex));
+    }
+
+    @Override
+    public long max(long[] array, int fromIndex, int toIndex) {
+        LongVector max = LongVector.broadcast(LONG_SPECIES, Long.MIN_VALUE);
+        int i = fromIndex;
+        int bound = fromIndex + LONG_SPECIES.loopBound(toIndex - fromIndex);
+        for (; i < bound; i += LONG_SPECIES.length())
+            max = max.max(LongVector.fromArray(LONG_SPECIES, array, i));
+        return Math.max(max.reduceLanes(VectorOperators.MAX), super.max(array, i, toIndex));
+    }
+
+    @Override
+    public double max(double[] array, int fromIndex, int toIndex) {
+        DoubleVector max = DoubleVector.broadcast(DOUBLE_SPECIES, Double.NEGATIVE_INFINITY);
+        int i = fromIndex;
+        int bound = fromIndex + DOUBLE_SPECIES.loopBound(toIndex - fromIndex);
+        for (; i < bound; i += DOUBLE_SPECIES.length())
+            max = max.max(DoubleVector.fromArray(DOUBLE_SPECIES, array, i));
+        return Math.max(max.reduceLanes(VectorOperators.MAX), super.max(array, i, toIndex));
+    }
+
+    /**
+     * <p>Performs the same partitioning as {@link ScalarPrimitiveOps#partition(int[], int, int)},
+     * but compares a whole vector of elements with the pivot at once. A block in which no element
+     * is less than or equal to the pivot is skipped without a single swap, a block in which every
+     * element is moved to the left part as one vector store, and only the lanes selected by the
+     * mask are swapped one by one in a mixed block.</p>
+     */
+    @Override
+    public int partition(int[] array, int first, int last) {
+        int pivot = array[last];
+        int lanes = INT_SPECIES.length();
+        int i = first - 1;
+        int j = first;
+        int bound = first + INT_SPECIES.loopBound(last - first);
+        for (; j < bound; j += lanes) {
+            IntVector block = IntVector.fromArray(INT_SPECIES, array, j);
+            VectorMask<Integer> lessOrEqual = block.compare(VectorOperators.LE, pivot);
+            if (!lessOrEqual.anyTrue())
+                continue;
+            if (lessOrEqual.allTrue()) {
+                if (i + 1 == j) {
+                    i += lanes;
+                    continue;
+                }
+                if (j - i - 1 >= lanes) {
+                    IntVector greater = IntVector.fromArray(INT_SPECIES, array, i + 1);
+                    block.intoArray(array, i + 1);
+                    greater.intoArray(array, j);
+                    i += lanes;
+                    continue;
+                }
+            }
+            for (long bits = lessOrEqual.toLong(); bits != 0; bits &= bits - 1)
+                swap(array, ++i, j + Long.numberOfTrailingZeros(bits));
+        }
+        for (; j < last; j++)
+            if (array[j] <= pivot)
+                swap(array, ++i, j);
+        swap(array, i + 1, last);
+        return i + 1;
+    }
+
+    /**
+     * <p>The {@code long} counterpart of {@link #partition(int[], int, int)}.</p>
+     */
+    @Override
+    public int partition(long[] array, int first, int last) {
+        long pivot = array[last];
+        int lanes = LONG_SPECIES.length();
+        int i = first - 1;
+        int j = first;
+        int bound = first + LONG_SPECIES.loopBound(last - first);
+        for (; j < bound; j += lanes) {
+            LongVector block = LongVector.fromArray(LONG_SPECIES, array, j);
+            VectorMask<Long> lessOrEqual = block.compare(VectorOperators.LE, pivot);
+            if (!lessOrEqual.anyTrue())
+                continue;
+            if (lessOrEqual.allTrue()) {
+                if (i + 1 == j) {
+                    i += lanes;
+                    continue;
+                }
+                if (j - i - 1 >= lanes) {
+                    LongVector greater = LongVector.fromArray(LONG_SPECIES, array, i + 1);
+                    block.intoArray(array, i + 1);
+                    greater.intoArray(array, j);
+                    i += lanes;
+                    continue;
+                }
+            }
+            for (long bits = lessOrEqual.toLong(); bits != 0; bits &= bits - 1)
+                swap(array, ++i, j + Long.numberOfTrailingZeros(bits));
+        }
+        for (; j < last; j++)
+            if (array[j] <= pivot)
+                swap(array, ++i, j);
+        swap(array, i + 1, last);
+        return i + 1;
+    }
+
+    /**
+     * <p>The {@code double} counterpart of {@link #partition(int[], int, int)}.</p>
+     */
+    @Override
+    public int partition(double[] array, int first, int last) {
+        double pivot = array[last];
+        int lanes = DOUBLE_SPECIES.length();
+        int i = first - 1;
+        int j = first;
+        int bound = first + DOUBLE_SPECIES.loopBound(last - first);
+        for (; j < bound; j += lanes) {
+            DoubleVector block = DoubleVector.fromArray(DOUBLE_SPECIES, array, j);
+            VectorMask<Double> lessOrEqual = block.compare(VectorOperators.LE, pivot);
+            if (!lessOrEqual.anyTrue())
+                continue;
+            if (lessOrEqual.allTrue()) {
+                if (i + 1 == j) {
+                    i += lanes;
+                    continue;
+                }
+                if (j - i - 1 >= lanes) {
+                    DoubleVector greater = DoubleVector.fromArray(DOUBLE_SPECIES, array, i + 1);
+                    block.intoArray(array, i + 1);
+                    greater.intoArray(array, j);
+                    i += lanes;
+                    continue;
+                }
+            }
+            for (long bits = lessOrEqual.toLong(); bits != 0; bits &= bits - 1)
+                swap(array, ++i, j + Long.numberOfTrailingZeros(bits));
+        }
+        for (; j < last; j++)
+            if (array[j] <= pivot)
+                swap(array, ++i, j);
+        swap(array, i + 1, last);
+        return i + 1;
+    }
+}
@@ -0,0 +1,237 @@
+package com.gorokhov;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CustomArrayListIOTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static <E> byte[] write(CustomArrayList<E> list, ElementCodec<E> codec, boolean compress) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CustomArrayListIO.write(list, codec, Channels.newChannel(out), compress);
+        return out.toByteArray();
+    }
+
+    private static <E> CustomArrayList<E> read(byte[] bytes, ElementCodec<E> codec) throws IOException {
+        return CustomArrayListIO.read(Channels.newChannel(new ByteArrayInputStream(bytes)), codec);
+    }
+
+    private static void assertSameElements(CustomArrayList<?> expected, CustomArrayList<?> actual) {
+        assertArrayEquals(Arrays.copyOf(expected.getArray(), expected.size()),
+                Arrays.copyOf(actual.getArray(), actual.size()));
+    }
+
+    @Test
+    public void theListShouldBeReadBackEqual() throws IOException {
+        CustomArrayList<Integer> list = new CustomArrayList<>();
+        list.add(17);
+        list.add(-40922);
+        list.add(Integer.MAX_VALUE);
+        CustomArrayList<Integer> result = read(write(list, ElementCodec.INTEGER, false), ElementCodec.INTEGER);
+        assertArrayEquals(new Integer[]{17, -40922, Integer.MAX_VALUE}, result.getArray());
+    }
+
+    @Test
+    public void theFreeCapacityShouldNotBeWritten() throws IOException {
+        CustomArrayList<Long> list = new CustomArrayList<>(1000);
+        list.add(5L);
+        assertEquals(11 + 13 + Long.BYTES, write(list, ElementCodec.LONG, false).length);
+    }
+
+    @Test
+    public void theLoadedListShouldHaveCapacityEqualToSize() throws IOException {
+        Path path = tempDir.resolve("list.bin");
+        CustomArrayList<Double> list = new CustomArrayList<>();
+        for (int i = 0; i < 20000; i++)
+            list.add(i * 0.25);
+        CustomArrayListIO.store(list, ElementCodec.DOUBLE, path);
+        CustomArrayList<Double> result = CustomArrayListIO.load(path, ElementCodec.DOUBLE);
+        assertEquals(20000, result.getArray().length);
+        assertSameElements(list, result);
+    }
+
+    @Test
+    public void theListReadFromAStreamShouldBeReadBackEqual() throws IOException {
+        CustomArrayList<Double> list = new CustomArrayList<>();
+        for (int i = 0; i < 20000; i++)
+            list.add(i * 0.25);
+        assertSameElements(list, read(write(list, ElementCodec.DOUBLE, false), ElementCodec.DOUBLE));
+    }
+
+    @Test
+    public void aForgedSizeShouldBeRejectedBeforeAllocation() throws IOException {
+        byte[] bytes = write(new CustomArrayList<Integer>(), ElementCodec.INTEGER, false);
+        ByteBuffer.wrap(bytes).putInt(7, Integer.MAX_VALUE - 16);
+        assertThrows(EOFException.class, () -> read(bytes, ElementCodec.INTEGER));
+        Path path = tempDir.resolve("forged.bin");
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> CustomArrayListIO.load(path, ElementCodec.INTEGER));
+    }
+
+    @Test
+    public void forgedChunkLengthsShouldBeRejected() throws IOException {
+        CustomArrayList<Integer> list = new CustomArrayList<>();
+        list.add(1);
+        list.add(2);
+        byte[] bytes = write(list, ElementCodec.INTEGER, true);
+        ByteBuffer.wrap(bytes).putInt(11 + 4, Integer.MAX_VALUE).putInt(11 + 8, Integer.MAX_VALUE);
+        assertThrows(IOException.class, () -> read(bytes, ElementCodec.INTEGER));
+
+        // A single element may be larger than a chunk, but not larger than its compressed data can expand to
+        byte[] header = Arrays.copyOf(write(new CustomArrayList<Integer>(), ElementCodec.INTEGER, true), 11);
+        byte[] forged = ByteBuffer.allocate(11 + 13 + 16)
+                .put(header).putInt(7, 1)
+                .putInt(1).putInt(1_500_000_000).putInt(16).put((byte) 1)
+                .array();
+        Path path = tempDir.resolve("forged.bin");
+        Files.write(path, forged);
+        assertThrows(IOException.class, () -> CustomArrayListIO.load(path, ElementCodec.INTEGER));
+    }
+
+    @Test
+    public void aHighlyCompressedListShouldBeStoredAndLoaded() throws IOException {
+        Path path = tempDir.resolve("list.bin");
+        CustomArrayList<Integer> zeros = new CustomArrayList<>();
+        CustomArrayList<String> nulls = new CustomArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            zeros.add(0);
+            nulls.add(null);
+        }
+        CustomArrayListIO.store(zeros, ElementCodec.INTEGER, path, true);
+        assertTrue(Files.size(path) * 8 < zeros.size());
+        assertSameElements(zeros, CustomArrayListIO.load(path, ElementCodec.INTEGER));
+        CustomArrayListIO.store(nulls, ElementCodec.STRING, path, true);
+        assertTrue(Files.size(path) * 8 < nulls.size());
+        assertSameElements(nulls, CustomArrayListIO.load(path, ElementCodec.STRING));
+    }
+
+    @Test
+    public void chunksAfterAnElementLargerThanAChunkShouldHaveTheNormalSize() throws IOException {
+        char[] chars = new char[200000];
+        Arrays.fill(chars, 'z');
+        CustomArrayList<Integer> lengths = new CustomArrayList<>();
+        CustomArrayList<String> list = new CustomArrayList<>();
+        list.add("small");
+        list.add(new String(chars));
+        for (int i = 0; i < 20000; i++)
+            list.add("element " + i);
+        ByteBuffer bytes = ByteBuffer.wrap(write(list, ElementCodec.STRING, false)).position(11);
+        while (bytes.hasRemaining()) {
+            bytes.getInt();
+            lengths.add(bytes.getInt());
+            int storedLength = bytes.getInt();
+            bytes.get();
+            bytes.position(bytes.position() + storedLength);
+        }
+        assertEquals(200000 + 4, lengths.get(1));
+        for (int i = 2; i < lengths.size(); i++)
+            assertTrue(lengths.get(i) <= 1024 + 64 * 1024);
+        assertSameElements(list, read(bytes.array(), ElementCodec.STRING));
+    }
+
+    @Test
+    public void stringsAndNullsShouldBeReadBack() throws IOException {
+        String[] expected = {"Rick", null, "", "Привет, мир", null, "😀"};
+        CustomArrayList<String> list = new CustomArrayList<>();
+        for (String string : expected)
+            list.add(string);
+        CustomArrayList<String> result = read(write(list, ElementCodec.STRING, true), ElementCodec.STRING);
+        assertArrayEquals(expected, result.getArray());
+    }
+
+    @Test
+    public void anElementLargerThanAChunkShouldBeReadBack() throws IOException {
+        char[] chars = new char[200000];
+        Arrays.fill(chars, 'z');
+        CustomArrayList<String> list = new CustomArrayList<>();
+        list.add("small");
+        list.add(new String(chars));
+        list.add("small again");
+        CustomArrayList<String> result = read(write(list, ElementCodec.STRING, false), ElementCodec.STRING);
+        assertSameElements(list, result);
+    }
+
+    @Test
+    public void compressionShouldShrinkRepetitiveData() throws IOException {
+        CustomArrayList<Integer> list = new CustomArrayList<>();
+        for (int i = 0; i < 50000; i++)
+            list.add(i % 100);
+        byte[] plain = write(list, ElementCodec.INTEGER, false);
+        byte[] compressed = write(list, ElementCodec.INTEGER, true);
+        assertTrue(compressed.length < plain.length / 4);
+        assertSameElements(list, read(compressed, ElementCodec.INTEGER));
+    }
+
+    @Test
+    public void theListShouldBeStoredAndLoaded() throws IOException {
+        Path path = tempDir.resolve("list.bin");
+        CustomArrayList<Short> list = new CustomArrayList<>();
+        for (short i = -300; i < 300; i++)
+            list.add(i);
+        CustomArrayListIO.store(list, ElementCodec.SHORT, path, true);
+        assertSameElements(list, CustomArrayListIO.load(path, ElementCodec.SHORT));
+    }
+
+    @Test
+    public void severalListsShouldBeReadFromOneStream() throws IOException {
+        CustomArrayList<Boolean> first = new CustomArrayList<>();
+        first.add(true);
+        first.add(false);
+        CustomArrayList<Boolean> second = new CustomArrayList<>();
+        second.add(false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CustomArrayListIO.write(first, ElementCodec.BOOLEAN, Channels.newChannel(out));
+        CustomArrayListIO.write(second, ElementCodec.BOOLEAN, Channels.newChannel(out));
+        var in = Channels.newChannel(new ByteArrayInputStream(out.toByteArray()));
+        assertSameElements(first, CustomArrayListIO.read(in, ElementCodec.BOOLEAN));
+        assertSameElements(second, CustomArrayListIO.read(in, ElementCodec.BOOLEAN));
+    }
+
+    @Test
+    public void anotherCodecShouldBeRejected() throws IOException {
+        CustomArrayList<Integer> list = new CustomArrayList<>();
+        list.add(1);
+        byte[] bytes = write(list, ElementCodec.INTEGER, false);
+        assertThrows(IOException.class, () -> read(bytes, ElementCodec.FLOAT));
+    }
+
+    @Test
+    public void aTruncatedStreamShouldBeRejected() throws IOException {
+        CustomArrayList<Character> list = new CustomArrayList<>();
+        list.add('a');
+        list.add('b');
+        byte[] bytes = write(list, ElementCodec.CHARACTER, false);
+        assertThrows(EOFException.class, () -> read(Arrays.copyOf(bytes, bytes.length - 1), ElementCodec.CHARACTER));
+    }
+
+    @Test
+    public void aCorruptedCompressedChunkShouldBeRejected() throws IOException {
+        CustomArrayList<Byte> list = new CustomArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            list.add((byte) (i % 7));
+        byte[] bytes = write(list, ElementCodec.BYTE, true);
+        for (int i = 11 + 13; i < bytes.length; i++)
+            bytes[i] = (byte) 0xF0;
+        assertThrows(IOException.class, () -> read(bytes, ElementCodec.BYTE));
+    }
+
+    @Test
+    public void anEmptyListShouldBeReadBack() throws IOException {
+        CustomArrayList<Float> list = new CustomArrayList<>();
+        CustomArrayList<Float> result = read(write(list, ElementCodec.FLOAT, true), ElementCodec.FLOAT);
+        assertTrue(result.isEmpty());
+    }
+}
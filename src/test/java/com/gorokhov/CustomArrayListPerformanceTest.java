@@ -0,0 +1,388 @@
+package com.gorokhov;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Complexity and time budgets for sorting and for mass list operations on large and adversarial
+ * inputs. These tests take several seconds and run only with the {@code performance} Maven profile.
+ */
+@Tag("performance")
+public class CustomArrayListPerformanceTest {
+
+    private static final int SIZE = 200_000;
+
+    /**
+     * Size of the lists built by the quicksort killer, whose comparator is slower than a plain one.
+     */
+    private static final int ADVERSARY_SIZE = 50_000;
+
+    /**
+     * Number of insertions and removals at the front of the list, each of which shifts the whole list.
+     */
+    private static final int SHIFT_COUNT = 20_000;
+
+    /**
+     * A sort may take at most this many comparisons per n*log2(n). A quick sort that switches to
+     * heapsort stays within it.
+     */
+    private static final double COMPARISONS_PER_N_LOG_N = 5.0;
+
+    /**
+     * The adaptive sort may take at most this many comparisons per n*log2(n). It chooses an engine
+     * that does not switch to heapsort, which alone takes about 3*n*log2(n) comparisons.
+     */
+    private static final double ADAPTIVE_COMPARISONS_PER_N_LOG_N = 1.5;
+
+    /**
+     * Three-way quick sort may take at most this many comparisons per n*log2(n) on data with
+     * many duplicates, where each partitioning removes all copies of the pivot.
+     */
+    private static final double THREE_WAY_COMPARISONS_PER_N_LOG_N = 1.0;
+
+    /**
+     * A sort may take at most this many nanoseconds per n*log2(n), which leaves room for the
+     * heapsort fallback on a slow machine. A quadratic sort of {@code ADVERSARY_SIZE} or more
+     * elements exceeds this by an order of magnitude.
+     */
+    private static final long NANOS_PER_N_LOG_N = 1000;
+
+    /**
+     * Insertion or removal at the front may take at most this many nanoseconds per shifted element.
+     */
+    private static final long NANOS_PER_SHIFTED_ELEMENT = 5;
+
+    /**
+     * Shapes of the input data and the engines that the adaptive sort chooses for them with
+     * a comparator.
+     */
+    private enum Shape {
+        RANDOM(SortEngine.QUICK),
+        SORTED(SortEngine.RUN_MERGE),
+        REVERSE(SortEngine.RUN_MERGE),
+        ALL_EQUAL(SortEngine.RUN_MERGE),
+        SAWTOOTH(SortEngine.THREE_WAY_QUICK),
+        ORGAN_PIPE(SortEngine.RUN_MERGE),
+        FEW_DISTINCT(SortEngine.THREE_WAY_QUICK),
+        SORTED_WITH_NOISE(SortEngine.QUICK);
+
+        private final SortEngine engine;
+
+        Shape(SortEngine engine) {
+            this.engine = engine;
+        }
+    }
+
+    private static int[] generate(Shape shape, int n) {
+        Random random = new Random(n + shape.ordinal());
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = switch (shape) {
+                case RANDOM -> random.nextInt();
+                case SORTED -> i;
+                case REVERSE -> n - i;
+                case ALL_EQUAL -> 42;
+                case SAWTOOTH -> i % 1000;
+                case ORGAN_PIPE -> Math.min(i, n - i);
+                case FEW_DISTINCT -> random.nextInt(4);
+                case SORTED_WITH_NOISE -> i % 100 == 0 ? random.nextInt(n) : i;
+            };
+        }
+        return values;
+    }
+
+    /**
+     * Natural ordering of integers that counts its comparisons.
+     */
+    private static final class CountingComparator implements Comparator<Integer> {
+
+        private long comparisons;
+
+        @Override
+        public int compare(Integer a, Integer b) {
+            comparisons++;
+            return Integer.compare(a, b);
+        }
+    }
+
+    /**
+     * McIlroy's adversary for quicksort ("A Killer Adversary for Quicksort"). The list holds indices,
+     * and the value of an index is decided lazily: all values start as "gas", greater than any
+     * decided value, and a gas value is frozen only when the sort compares it with another one,
+     * choosing the element that is most likely the pivot to be frozen smallest. Any quicksort with
+     * a deterministic pivot choice is driven to its worst case, and the frozen values are an input
+     * that drives it there again.
+     */
+    private static final class Adversary implements Comparator<Integer> {
+
+        private final int[] values;
+
+        private final int gas;
+
+        private int solid;
+
+        private int candidate = -1;
+
+        private long comparisons;
+
+        Adversary(int n) {
+            values = new int[n];
+            gas = n;
+            Arrays.fill(values, gas);
+        }
+
+        @Override
+        public int compare(Integer x, Integer y) {
+            comparisons++;
+            if (values[x] == gas && values[y] == gas) {
+                if (x == candidate)
+                    values[x] = solid++;
+                else
+                    values[y] = solid++;
+            }
+            if (values[x] == gas)
+                candidate = x;
+            else if (values[y] == gas)
+                candidate = y;
+            return Integer.compare(values[x], values[y]);
+        }
+
+        Integer[] newArray() {
+            Integer[] array = new Integer[values.length];
+            for (int i = 0; i < values.length; i++)
+                array[i] = i;
+            return array;
+        }
+
+        CustomArrayList<Integer> newList() {
+            CustomArrayList<Integer> list = new CustomArrayList<>(values.length);
+            for (Integer index : newArray())
+                list.add(index);
+            return list;
+        }
+    }
+
+    private static double nLogN(int n) {
+        return n * (Math.log(n) / Math.log(2));
+    }
+
+    private static Duration sortBudget(int n) {
+        return Duration.ofNanos((long) (nLogN(n) * NANOS_PER_N_LOG_N));
+    }
+
+    private static void assertComparisons(long comparisons, int n, String input) {
+        assertComparisons(comparisons, n, COMPARISONS_PER_N_LOG_N, input);
+    }
+
+    private static void assertComparisons(long comparisons, int n, double perNLogN, String input) {
+        assertTrue(comparisons <= perNLogN * nLogN(n),
+                () -> input + ": " + comparisons + " comparisons for " + n + " elements");
+    }
+
+    private static CustomArrayList<Integer> toList(int[] values) {
+        CustomArrayList<Integer> list = new CustomArrayList<>(values.length);
+        for (int value : values)
+            list.add(value);
+        return list;
+    }
+
+    private static void assertSortedLikeArraysSort(int[] values, CustomArrayList<Integer> list, String input) {
+        int[] expected = values.clone();
+        Arrays.sort(expected);
+        int[] actual = new int[list.size()];
+        for (int i = 0; i < actual.length; i++)
+            actual[i] = list.get(i);
+        assertArrayEquals(expected, actual, input);
+    }
+
+    @Test
+    public void quickSortShouldStayWithinNLogNOnAdversarialInputs() {
+        for (Shape shape : Shape.values()) {
+            int[] values = generate(shape, SIZE);
+            CustomArrayList<Integer> list = toList(values);
+            CountingComparator comparator = new CountingComparator();
+            assertTimeoutPreemptively(sortBudget(SIZE), () -> CustomArrayList.quickSort(list, comparator), shape.name());
+            assertComparisons(comparator.comparisons, SIZE, shape.name());
+            assertSortedLikeArraysSort(values, list, shape.name());
+        }
+    }
+
+    @Test
+    public void quickSortInNaturalOrderShouldMatchArraysSort() {
+        for (Shape shape : Shape.values()) {
+            int[] values = generate(shape, SIZE);
+            CustomArrayList<Integer> list = toList(values);
+            assertTimeoutPreemptively(sortBudget(SIZE), () -> CustomArrayList.quickSort(list), shape.name());
+            assertSortedLikeArraysSort(values, list, shape.name());
+        }
+    }
+
+    @Test
+    public void quickSortShouldWithstandTheQuicksortKiller() {
+        Adversary adversary = new Adversary(ADVERSARY_SIZE);
+        assertTimeoutPreemptively(sortBudget(ADVERSARY_SIZE),
+                () -> CustomArrayList.quickSort(adversary.newList(), adversary));
+        assertComparisons(adversary.comparisons, ADVERSARY_SIZE, "adversary");
+
+        int[] killer = adversary.values.clone();
+        CustomArrayList<Integer> list = toList(killer);
+        CountingComparator comparator = new CountingComparator();
+        assertTimeoutPreemptively(sortBudget(ADVERSARY_SIZE), () -> CustomArrayList.quickSort(list, comparator));
+        assertComparisons(comparator.comparisons, ADVERSARY_SIZE, "killer input");
+        assertSortedLikeArraysSort(killer, list, "killer input");
+    }
+
+    @Test
+    public void adaptiveSortShouldStayWithinNLogNOnAdversarialInputs() {
+        for (Shape shape : Shape.values()) {
+            int[] values = generate(shape, SIZE);
+            CustomArrayList<Integer> list = toList(values);
+            CountingComparator comparator = new CountingComparator();
+            SortEngine engine = assertTimeoutPreemptively(sortBudget(SIZE),
+                    () -> CustomArrayList.sort(list, comparator), shape.name());
+            assertEquals(shape.engine, engine, shape.name());
+            assertComparisons(comparator.comparisons, SIZE, ADAPTIVE_COMPARISONS_PER_N_LOG_N, shape.name());
+            assertSortedLikeArraysSort(values, list, shape.name());
+        }
+    }
+
+    @Test
+    public void adaptiveSortInNaturalOrderShouldMatchArraysSort() {
+        for (Shape shape : Shape.values()) {
+            int[] values = generate(shape, SIZE);
+            CustomArrayList<Integer> list = toList(values);
+            assertTimeoutPreemptively(sortBudget(SIZE), () -> CustomArrayList.sort(list), shape.name());
+            assertSortedLikeArraysSort(values, list, shape.name());
+        }
+    }
+
+    @Test
+    public void threeWayQuickSortShouldStayWellUnderHeapsortOnDuplicates() {
+        for (Shape shape : new Shape[]{Shape.SAWTOOTH, Shape.FEW_DISTINCT, Shape.ALL_EQUAL}) {
+            int[] values = generate(shape, SIZE);
+            Integer[] array = Arrays.stream(values).boxed().toArray(Integer[]::new);
+            CountingComparator comparator = new CountingComparator();
+            assertTimeoutPreemptively(sortBudget(SIZE),
+                    () -> AdaptiveSort.sort(SortEngine.THREE_WAY_QUICK, array, SIZE, comparator), shape.name());
+            assertComparisons(comparator.comparisons, SIZE, THREE_WAY_COMPARISONS_PER_N_LOG_N, shape.name());
+            Arrays.sort(values);
+            assertArrayEquals(Arrays.stream(values).boxed().toArray(), array, shape.name());
+        }
+    }
+
+    @Test
+    public void threeWayQuickSortShouldWithstandTheQuicksortKiller() {
+        Adversary adversary = new Adversary(ADVERSARY_SIZE);
+        assertTimeoutPreemptively(sortBudget(ADVERSARY_SIZE),
+                () -> AdaptiveSort.sort(SortEngine.THREE_WAY_QUICK, adversary.newArray(), ADVERSARY_SIZE, adversary));
+        assertComparisons(adversary.comparisons, ADVERSARY_SIZE, "adversary");
+
+        int[] killer = adversary.values.clone();
+        Integer[] array = Arrays.stream(killer).boxed().toArray(Integer[]::new);
+        CountingComparator comparator = new CountingComparator();
+        assertTimeoutPreemptively(sortBudget(ADVERSARY_SIZE),
+                () -> AdaptiveSort.sort(SortEngine.THREE_WAY_QUICK, array, ADVERSARY_SIZE, comparator));
+        assertComparisons(comparator.comparisons, ADVERSARY_SIZE, "killer input");
+        Arrays.sort(killer);
+        assertArrayEquals(Arrays.stream(killer).boxed().toArray(), array);
+    }
+
+    @Test
+    public void adaptiveSortShouldWithstandTheQuicksortKiller() {
+        // Run counting decides the values in ascending order, so the adversary itself is sorted
+        // by merging runs, but the input it produces is left to quick sort
+        Adversary adversary = new Adversary(ADVERSARY_SIZE);
+        SortEngine adversaryEngine = assertTimeoutPreemptively(sortBudget(ADVERSARY_SIZE),
+                () -> CustomArrayList.sort(adversary.newList(), adversary));
+        assertEquals(SortEngine.RUN_MERGE, adversaryEngine);
+
+        Adversary quickSortAdversary = new Adversary(ADVERSARY_SIZE);
+        assertTimeoutPreemptively(sortBudget(ADVERSARY_SIZE),
+                () -> CustomArrayList.quickSort(quickSortAdversary.newList(), quickSortAdversary));
+        int[] killer = quickSortAdversary.values.clone();
+        CustomArrayList<Integer> list = toList(killer);
+        CountingComparator comparator = new CountingComparator();
+        SortEngine engine = assertTimeoutPreemptively(sortBudget(ADVERSARY_SIZE),
+                () -> CustomArrayList.sort(list, comparator));
+        assertEquals(SortEngine.QUICK, engine);
+        assertComparisons(comparator.comparisons, ADVERSARY_SIZE, "killer input");
+        assertSortedLikeArraysSort(killer, list, "killer input");
+    }
+
+    @Test
+    public void primitiveQuickSortShouldMatchArraysSort() {
+        for (Shape shape : Shape.values()) {
+            int[] values = generate(shape, SIZE);
+            int[] expected = values.clone();
+            Arrays.sort(expected);
+            assertTimeoutPreemptively(sortBudget(SIZE), () -> PrimitiveArrays.quickSort(values, 0, SIZE), shape.name());
+            assertArrayEquals(expected, values, shape.name());
+
+            long[] longValues = Arrays.stream(generate(shape, SIZE)).asLongStream().toArray();
+            long[] expectedLongs = longValues.clone();
+            Arrays.sort(expectedLongs);
+            assertTimeoutPreemptively(sortBudget(SIZE), () -> PrimitiveArrays.quickSort(longValues, 0, SIZE), shape.name());
+            assertArrayEquals(expectedLongs, longValues, shape.name());
+
+            double[] doubleValues = Arrays.stream(generate(shape, SIZE)).asDoubleStream().toArray();
+            double[] expectedDoubles = doubleValues.clone();
+            Arrays.sort(expectedDoubles);
+            assertTimeoutPreemptively(sortBudget(SIZE), () -> PrimitiveArrays.quickSort(doubleValues, 0, SIZE), shape.name());
+            assertArrayEquals(expectedDoubles, doubleValues, shape.name());
+        }
+    }
+
+    @Test
+    public void massInsertionAtTheFrontShouldStayWithinTimeBudget() {
+        CustomArrayList<Integer> list = new CustomArrayList<>();
+        list.add(SHIFT_COUNT);
+        Duration budget = Duration.ofNanos(NANOS_PER_SHIFTED_ELEMENT * SHIFT_COUNT * SHIFT_COUNT / 2);
+        assertTimeoutPreemptively(budget, () -> {
+            for (int i = SHIFT_COUNT - 1; i >= 0; i--)
+                list.add(0, i);
+        });
+        assertEquals(SHIFT_COUNT + 1, list.size());
+        for (int i = 0; i <= SHIFT_COUNT; i++)
+            assertEquals(i, list.get(i));
+    }
+
+    @Test
+    public void massRemovalFromTheFrontShouldStayWithinTimeBudget() {
+        CustomArrayList<Integer> list = new CustomArrayList<>();
+        for (int i = 0; i < SHIFT_COUNT; i++)
+            list.add(i);
+        Duration budget = Duration.ofNanos(NANOS_PER_SHIFTED_ELEMENT * SHIFT_COUNT * SHIFT_COUNT / 2);
+        assertTimeoutPreemptively(budget, () -> {
+            for (int i = 0; i < SHIFT_COUNT / 2; i++)
+                assertEquals(i, list.remove(0));
+            for (int i = SHIFT_COUNT / 2; i < SHIFT_COUNT; i++)
+                assertTrue(list.remove(Integer.valueOf(i)));
+        });
+        assertTrue(list.isEmpty());
+        assertTrue(Arrays.stream(list.getArray()).allMatch(element -> element == null));
+    }
+
+    @Test
+    public void growthShouldReallocateTheArrayLogarithmically() {
+        int n = 2_000_000;
+        CustomArrayList<Integer> list = new CustomArrayList<>();
+        Object[] array = list.getArray();
+        int reallocations = 0;
+        for (int i = 0; i < n; i++) {
+            list.add(i);
+            if (list.getArray() != array) {
+                array = list.getArray();
+                reallocations++;
+            }
+        }
+        int expected = (int) Math.ceil(Math.log((double) n / 10) / Math.log(1.5));
+        assertTrue(reallocations <= expected, reallocations + " reallocations for " + n + " elements");
+        assertTrue(array.length < 2L * n, "capacity " + array.length + " for " + n + " elements");
+    }
+}
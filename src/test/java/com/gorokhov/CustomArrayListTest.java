@@ -1,7 +1,9 @@
 package com.gorokhov;
 
 import org.junit.jupiter.api.Test;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -294,4 +296,106 @@ public class CustomArrayListTest {
         Integer[] expected = {num2, num3, num1, null, null};
         assertArrayEquals(expected, list.getArray());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void theSmallListShouldBeSortedByInsertionSort() {
+        CustomArrayList<Integer> list = new CustomArrayList<>(5);
+        list.add(95);
+        list.add(-8240);
+        list.add(1);
+        list.add(215);
+        list.add(-633);
+        assertEquals(SortEngine.INSERTION, CustomArrayList.sort(list));
+        Integer[] expected = {-8240, -633, 1, 95, 215};
+        assertArrayEquals(expected, list.getArray());
+    }
+
+    @Test
+    public void theNearlySortedListShouldBeSortedByMergingRuns() {
+        CustomArrayList<String> list = new CustomArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            list.add(String.format("%04d", i < 500 ? i * 2 : (999 - i) * 2 + 1));
+        String[] expected = Arrays.copyOf(list.getArray(), list.size(), String[].class);
+        Arrays.sort(expected);
+        assertEquals(SortEngine.RUN_MERGE, CustomArrayList.sort(list));
+        assertArrayEquals(expected, Arrays.copyOf(list.getArray(), list.size()));
+    }
+
+    @Test
+    public void theReverseSortedListShouldBeSortedByMergingRuns() {
+        CustomArrayList<Double> list = new CustomArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            list.add(i * 0.5);
+        Double[] expected = Arrays.copyOf(list.getArray(), list.size(), Double[].class);
+        assertEquals(SortEngine.RUN_MERGE, CustomArrayList.sort(list, Comparator.reverseOrder()));
+        Arrays.sort(expected, Comparator.reverseOrder());
+        assertArrayEquals(expected, Arrays.copyOf(list.getArray(), list.size()));
+    }
+
+    @Test
+    public void theListWithSmallRangeOfIntegersShouldBeSortedByCountingSort() {
+        CustomArrayList<Integer> list = new CustomArrayList<>();
+        new Random(7).ints(1000, -50, 50).forEach(list::add);
+        Integer[] expected = Arrays.copyOf(list.getArray(), list.size(), Integer[].class);
+        Arrays.sort(expected);
+        assertEquals(SortEngine.COUNTING, CustomArrayList.sort(list));
+        assertArrayEquals(expected, Arrays.copyOf(list.getArray(), list.size()));
+    }
+
+    @Test
+    public void theListWithManyDuplicatesShouldBeSortedByThreeWayQuickSort() {
+        String[] names = {"Rick", "Morty", "Summer", "Beth", "Jerry"};
+        CustomArrayList<String> list = new CustomArrayList<>();
+        new Random(11).ints(1000, 0, names.length).forEach(i -> list.add(names[i]));
+        String[] expected = Arrays.copyOf(list.getArray(), list.size(), String[].class);
+        Arrays.sort(expected, Comparator.reverseOrder());
+        assertEquals(SortEngine.THREE_WAY_QUICK, CustomArrayList.sort(list, Comparator.reverseOrder()));
+        assertArrayEquals(expected, Arrays.copyOf(list.getArray(), list.size()));
+    }
+
+    @Test
+    public void theSawtoothListShouldBeSortedByThreeWayQuickSortWithoutHeapsort() {
+        int size = 200000;
+        CustomArrayList<Long> list = new CustomArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            list.add((long) (i % 1000));
+        long[] comparisons = new long[1];
+        Comparator<Long> comparator = (a, b) -> {
+            comparisons[0]++;
+            return Long.compare(a, b);
+        };
+        assertEquals(SortEngine.THREE_WAY_QUICK, CustomArrayList.sort(list, comparator));
+        // Heapsort would take more than 3 * n * log2(n) comparisons
+        assertTrue(comparisons[0] < size * (Math.log(size) / Math.log(2)));
+        for (int i = 0; i < size; i++)
+            assertEquals(i / 200, (long) list.get(i));
+    }
+
+    @Test
+    public void theRandomListShouldBeSortedByQuickSort() {
+        CustomArrayList<Long> list = new CustomArrayList<>();
+        new Random(13).longs(1000).forEach(list::add);
+        Long[] expected = Arrays.copyOf(list.getArray(), list.size(), Long[].class);
+        Arrays.sort(expected);
+        assertEquals(SortEngine.QUICK, CustomArrayList.sort(list));
+        assertArrayEquals(expected, Arrays.copyOf(list.getArray(), list.size()));
+    }
+
+    @Test
+    public void capacityShouldGrowByOneAndAHalfTimes() {
+        assertEquals(16, CustomArrayList.newCapacity(10));
+        assertEquals(8, CustomArrayList.newCapacity(5));
+    }
+
+    @Test
+    public void capacityGrowthShouldNotOverflow() {
+        int oldCapacity = Integer.MAX_VALUE / 3 + 1;
+        assertEquals(oldCapacity * 3L / 2 + 1, CustomArrayList.newCapacity(oldCapacity));
+        assertEquals(CustomArrayList.MAX_CAPACITY, CustomArrayList.newCapacity(Integer.MAX_VALUE / 3 * 2));
+    }
+
+    @Test
+    public void capacityShouldNotGrowBeyondTheMaximum() {
+        assertThrows(OutOfMemoryError.class, () -> CustomArrayList.newCapacity(CustomArrayList.MAX_CAPACITY));
+    }
+}
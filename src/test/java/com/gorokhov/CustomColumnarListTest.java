@@ -0,0 +1,199 @@
+package com.gorokhov;
+
+import com.gorokhov.CustomColumnarList.ColumnType;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CustomColumnarListTest {
+
+    private static CustomColumnarList newTrades() {
+        CustomColumnarList list = new CustomColumnarList(ColumnType.INT, ColumnType.LONG, ColumnType.DOUBLE);
+        list.add(3, 1700000000003L, 12.5);
+        list.add(1, 1700000000001L, 99.0);
+        list.add(3, 1700000000002L, -4.25);
+        list.add(2, 1700000000004L, 0.5);
+        return list;
+    }
+
+    @Test
+    public void newListShouldHaveZeroSize() {
+        CustomColumnarList list = new CustomColumnarList(ColumnType.INT);
+        assertEquals(0, list.size());
+        assertEquals(10, list.getIntColumn(0).length);
+    }
+
+    @Test
+    public void listShouldHaveColumns() {
+        assertThrows(IllegalArgumentException.class, CustomColumnarList::new);
+    }
+
+    @Test
+    public void capacityShouldNotBeNegative() {
+        assertThrows(IllegalArgumentException.class, () -> new CustomColumnarList(-5, ColumnType.LONG));
+    }
+
+    @Test
+    public void addedRowShouldBeReturned() {
+        CustomColumnarList list = newTrades();
+        assertArrayEquals(new Number[]{1, 1700000000001L, 99.0}, list.get(1));
+        assertEquals(4, list.size());
+    }
+
+    @Test
+    public void valuesShouldBeConvertedToColumnTypes() {
+        CustomColumnarList list = new CustomColumnarList(ColumnType.LONG, ColumnType.DOUBLE);
+        list.add(7, 2);
+        assertArrayEquals(new Number[]{7L, 2.0}, list.get(0));
+    }
+
+    @Test
+    public void rowShouldHaveValueForEachColumn() {
+        CustomColumnarList list = newTrades();
+        assertThrows(IllegalArgumentException.class, () -> list.add(1, 2L));
+    }
+
+    @Test
+    public void theListShouldAutomaticallyGrowIfThereIsNotEnoughFreeSpace() {
+        CustomColumnarList list = new CustomColumnarList(0, ColumnType.INT, ColumnType.DOUBLE);
+        for (int i = 0; i < 100; i++)
+            list.add(i, i * 0.5);
+        assertEquals(99, list.getInt(99, 0));
+        assertEquals(49.5, list.getDouble(99, 1));
+    }
+
+    @Test
+    public void insertingTheRowShouldShiftSubsequentRows() {
+        CustomColumnarList list = newTrades();
+        list.insert(1, 9, 9L, 9.0);
+        assertArrayEquals(new Number[]{9, 9L, 9.0}, list.get(1));
+        assertArrayEquals(new Number[]{1, 1700000000001L, 99.0}, list.get(2));
+        assertEquals(5, list.size());
+    }
+
+    @Test
+    public void setShouldReturnOldRow() {
+        CustomColumnarList list = newTrades();
+        assertArrayEquals(new Number[]{2, 1700000000004L, 0.5}, list.set(3, 5, 6L, 7.0));
+        assertArrayEquals(new Number[]{5, 6L, 7.0}, list.get(3));
+    }
+
+    @Test
+    public void removingTheRowShouldShiftSubsequentRows() {
+        CustomColumnarList list = newTrades();
+        assertArrayEquals(new Number[]{1, 1700000000001L, 99.0}, list.remove(1));
+        assertArrayEquals(new Number[]{3, 1700000000002L, -4.25}, list.get(1));
+        assertEquals(3, list.size());
+    }
+
+    @Test
+    public void cellShouldBeReplaced() {
+        CustomColumnarList list = newTrades();
+        assertEquals(1700000000002L, list.setLong(2, 1, 42L));
+        assertEquals(42L, list.getLong(2, 1));
+    }
+
+    @Test
+    public void cellOfAnotherTypeShouldNotBeAccessible() {
+        CustomColumnarList list = newTrades();
+        assertThrows(IllegalArgumentException.class, () -> list.getDouble(0, 0));
+    }
+
+    @Test
+    public void indexShouldBeWithinFilledRows() {
+        CustomColumnarList list = newTrades();
+        assertThrows(IndexOutOfBoundsException.class, () -> list.getInt(4, 0));
+    }
+
+    @Test
+    public void rowsShouldBeFiltered() {
+        CustomColumnarList list = newTrades();
+        assertArrayEquals(new int[]{0, 1}, list.filterDouble(2, price -> price > 10));
+        assertArrayEquals(new int[]{0, 2}, list.filterInt(0, id -> id == 3));
+    }
+
+    @Test
+    public void columnShouldBeScannedWithPrimitiveArrays() {
+        CustomColumnarList list = newTrades();
+        assertEquals(99.0, PrimitiveArrays.max(list.getDoubleColumn(2), 0, list.size()));
+        assertEquals(2, PrimitiveArrays.count(list.getIntColumn(0), 0, list.size(), 3));
+    }
+
+    @Test
+    public void allColumnsShouldBeSortedByOneKeyColumn() {
+        CustomColumnarList list = newTrades();
+        list.sortBy(2);
+        assertArrayEquals(new int[]{3, 2, 3, 1}, Arrays.copyOf(list.getIntColumn(0), 4));
+        assertArrayEquals(new long[]{1700000000002L, 1700000000004L, 1700000000003L, 1700000000001L},
+                Arrays.copyOf(list.getLongColumn(1), 4));
+    }
+
+    @Test
+    public void rowsShouldBeSortedBySeveralKeyColumns() {
+        CustomColumnarList list = newTrades();
+        list.sortBy(0, 1);
+        assertArrayEquals(new Number[]{1, 1700000000001L, 99.0}, list.get(0));
+        assertArrayEquals(new Number[]{2, 1700000000004L, 0.5}, list.get(1));
+        assertArrayEquals(new Number[]{3, 1700000000002L, -4.25}, list.get(2));
+        assertArrayEquals(new Number[]{3, 1700000000003L, 12.5}, list.get(3));
+    }
+
+    @Test
+    public void rowsWithEqualKeysShouldKeepTheirOrder() {
+        CustomColumnarList list = new CustomColumnarList(ColumnType.INT, ColumnType.INT);
+        for (int i = 0; i < 1000; i++)
+            list.add(i % 7, i);
+        list.sortBy(0);
+        for (int i = 1; i < 1000; i++) {
+            int previous = list.getInt(i - 1, 0);
+            int current = list.getInt(i, 0);
+            assertTrue(previous < current || previous == current && list.getInt(i - 1, 1) < list.getInt(i, 1));
+        }
+    }
+
+    @Test
+    public void sortingByOneKeyColumnShouldMatchTheGeneralComparison() {
+        Random random = new Random(42);
+        double[] specials = {Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY};
+        for (ColumnType type : ColumnType.values()) {
+            for (long bound : new long[]{100, Long.MAX_VALUE}) {
+                CustomColumnarList first = new CustomColumnarList(type, ColumnType.INT);
+                CustomColumnarList second = new CustomColumnarList(type, ColumnType.INT);
+                for (int row = 0; row < 5000; row++) {
+                    long value = random.nextLong() % bound;
+                    Number key = switch (type) {
+                        case INT -> (int) value;
+                        case LONG -> value;
+                        case DOUBLE -> row % 10 == 0 ? specials[row / 10 % specials.length] : (double) value;
+                    };
+                    first.add(key, row);
+                    second.add(key, row);
+                }
+                first.sortBy(0);
+                second.sortBy(0, 0);
+                assertEquals(second, first);
+            }
+        }
+    }
+
+    @Test
+    public void listsShouldBeEquals() {
+        CustomColumnarList first = newTrades();
+        CustomColumnarList second = new CustomColumnarList(100, ColumnType.INT, ColumnType.LONG, ColumnType.DOUBLE);
+        for (int row = 0; row < first.size(); row++)
+            second.add(first.get(row));
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    public void theStringRepresentationOfTheListShouldBeDefined() {
+        CustomColumnarList list = new CustomColumnarList(ColumnType.INT, ColumnType.DOUBLE);
+        list.add(1, 2.5);
+        list.add(3, 4);
+        String expected = "CustomColumnarList{types=[INT, DOUBLE], rows=[[1, 2.5], [3, 4.0]], size=2}";
+        assertEquals(expected, list.toString());
+    }
+}
@@ -0,0 +1,101 @@
+package com.gorokhov;
+
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrimitiveArraysTest {
+
+    @Test
+    public void theFirstOccurrenceShouldBeFound() {
+        int[] array = new int[100];
+        array[37] = 5;
+        array[81] = 5;
+        assertEquals(37, PrimitiveArrays.indexOf(array, 0, array.length, 5));
+    }
+
+    @Test
+    public void theSearchShouldStayWithinTheRange() {
+        long[] array = new long[100];
+        array[7] = -12L;
+        array[64] = -12L;
+        assertEquals(64, PrimitiveArrays.indexOf(array, 10, 70, -12L));
+        assertEquals(-1, PrimitiveArrays.indexOf(array, 10, 60, -12L));
+    }
+
+    @Test
+    public void notANumberShouldNeverBeFound() {
+        double[] array = {1.5, Double.NaN, 3.25};
+        assertEquals(-1, PrimitiveArrays.indexOf(array, 0, array.length, Double.NaN));
+        assertEquals(2, PrimitiveArrays.indexOf(array, 0, array.length, 3.25));
+    }
+
+    @Test
+    public void occurrencesShouldBeCounted() {
+        double[] array = new double[53];
+        for (int i = 0; i < array.length; i += 3)
+            array[i] = 0.5;
+        assertEquals(18, PrimitiveArrays.count(array, 0, array.length, 0.5));
+        assertEquals(17, PrimitiveArrays.count(array, 1, array.length, 0.5));
+    }
+
+    @Test
+    public void minAndMaxShouldBeFound() {
+        int[] array = new int[77];
+        for (int i = 0; i < array.length; i++)
+            array[i] = i * 31 % 77 - 20;
+        assertEquals(-20, PrimitiveArrays.min(array, 0, array.length));
+        assertEquals(56, PrimitiveArrays.max(array, 0, array.length));
+        assertEquals(Long.MIN_VALUE, PrimitiveArrays.min(new long[]{3, Long.MIN_VALUE, 8}, 0, 3));
+        assertEquals(-0.5, PrimitiveArrays.max(new double[]{-7.0, -0.5, -3.0}, 0, 3));
+    }
+
+    @Test
+    public void minOfAnEmptyRangeShouldNotExist() {
+        int[] array = {4, 8, 15};
+        assertThrows(NoSuchElementException.class, () -> PrimitiveArrays.min(array, 2, 2));
+    }
+
+    @Test
+    public void rangeShouldBeWithinTheArray() {
+        int[] array = {4, 8, 15};
+        assertThrows(IndexOutOfBoundsException.class, () -> PrimitiveArrays.count(array, 1, 4, 8));
+    }
+
+    @Test
+    public void theIntArrayShouldBeSorted() {
+        int[] array = new Random(42).ints(1000, -500, 500).toArray();
+        int[] expected = array.clone();
+        Arrays.sort(expected);
+        PrimitiveArrays.quickSort(array, 0, array.length);
+        assertArrayEquals(expected, array);
+    }
+
+    @Test
+    public void onlyTheRangeOfTheLongArrayShouldBeSorted() {
+        long[] array = {9, 8, 7, 6, 5, 4, 3, 2, 1};
+        PrimitiveArrays.quickSort(array, 2, 7);
+        long[] expected = {9, 8, 3, 4, 5, 6, 7, 2, 1};
+        assertArrayEquals(expected, array);
+    }
+
+    @Test
+    public void theDoubleArrayShouldBeSortedLikeArraysSort() {
+        Random random = new Random(42);
+        double[] array = new double[1000];
+        for (int i = 0; i < array.length; i++)
+            array[i] = switch (i % 5) {
+                case 0 -> Double.NaN;
+                case 1 -> -0.0;
+                case 2 -> 0.0;
+                default -> random.nextInt(100) - 50;
+            };
+        double[] expected = array.clone();
+        Arrays.sort(expected);
+        PrimitiveArrays.quickSort(array, 0, array.length);
+        assertArrayEquals(expected, array);
+    }
+}
@@ -0,0 +1,102 @@
+package com.gorokhov;
+
+import org.junit.jupiter.api.Test;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares {@link VectorPrimitiveOps} with {@link ScalarPrimitiveOps}. Like the class under test,
+ * it is compiled and run only with the {@code vector} Maven profile.
+ */
+public class VectorPrimitiveOpsTest {
+
+    private static final PrimitiveOps VECTOR = new VectorPrimitiveOps();
+
+    private static final PrimitiveOps SCALAR = new ScalarPrimitiveOps();
+
+    /**
+     * Lengths around several multiples of any vector shape, so that both full blocks and tails
+     * are covered.
+     */
+    private static final int[] LENGTHS = {0, 1, 2, 3, 7, 8, 9, 15, 16, 17, 31, 32, 33, 63, 64, 65, 100, 1000};
+
+    private static double[] randomDoubles(Random random, int length) {
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++)
+            array[i] = switch (random.nextInt(8)) {
+                case 0 -> Double.NaN;
+                case 1 -> -0.0;
+                case 2 -> 0.0;
+                case 3 -> Double.NEGATIVE_INFINITY;
+                case 4 -> Double.POSITIVE_INFINITY;
+                default -> random.nextInt(16) - 8;
+            };
+        return array;
+    }
+
+    @Test
+    public void primitiveArraysShouldUseTheVectorApi() {
+        assertTrue(PrimitiveArrays.isVectorized());
+    }
+
+    @Test
+    public void scansShouldMatchTheScalarImplementation() {
+        Random random = new Random(42);
+        for (int length : LENGTHS) {
+            for (int from = 0; from <= Math.min(length, 3); from++) {
+                int[] ints = random.ints(length, -8, 8).toArray();
+                long[] longs = random.longs(length, -8, 8).toArray();
+                double[] doubles = randomDoubles(random, length);
+                for (int key = -8; key < 8; key++) {
+                    assertEquals(SCALAR.indexOf(ints, from, length, key), VECTOR.indexOf(ints, from, length, key));
+                    assertEquals(SCALAR.indexOf(longs, from, length, key), VECTOR.indexOf(longs, from, length, key));
+                    assertEquals(SCALAR.indexOf(doubles, from, length, key), VECTOR.indexOf(doubles, from, length, key));
+                    assertEquals(SCALAR.count(ints, from, length, key), VECTOR.count(ints, from, length, key));
+                    assertEquals(SCALAR.count(longs, from, length, key), VECTOR.count(longs, from, length, key));
+                    assertEquals(SCALAR.count(doubles, from, length, key), VECTOR.count(doubles, from, length, key));
+                }
+                for (double key : new double[]{Double.NaN, -0.0, 0.0, Double.POSITIVE_INFINITY}) {
+                    assertEquals(SCALAR.indexOf(doubles, from, length, key), VECTOR.indexOf(doubles, from, length, key));
+                    assertEquals(SCALAR.count(doubles, from, length, key), VECTOR.count(doubles, from, length, key));
+                }
+                assertEquals(SCALAR.min(ints, from, length), VECTOR.min(ints, from, length));
+                assertEquals(SCALAR.max(ints, from, length), VECTOR.max(ints, from, length));
+                assertEquals(SCALAR.min(longs, from, length), VECTOR.min(longs, from, length));
+                assertEquals(SCALAR.max(longs, from, length), VECTOR.max(longs, from, length));
+                assertEquals(Double.doubleToRawLongBits(SCALAR.min(doubles, from, length)),
+                        Double.doubleToRawLongBits(VECTOR.min(doubles, from, length)));
+                assertEquals(Double.doubleToRawLongBits(SCALAR.max(doubles, from, length)),
+                        Double.doubleToRawLongBits(VECTOR.max(doubles, from, length)));
+            }
+        }
+    }
+
+    @Test
+    public void partitionsShouldMatchTheScalarImplementation() {
+        Random random = new Random(42);
+        for (int length : LENGTHS) {
+            for (int first = 0; first < Math.min(length, 3); first++) {
+                for (int bound : new int[]{2, 16, 1 << 20}) {
+                    int[] ints = random.ints(length, 0, bound).toArray();
+                    int[] scalarInts = ints.clone();
+                    assertEquals(SCALAR.partition(scalarInts, first, length - 1), VECTOR.partition(ints, first, length - 1));
+                    assertArrayEquals(scalarInts, ints);
+
+                    long[] longs = random.longs(length, 0, bound).toArray();
+                    long[] scalarLongs = longs.clone();
+                    assertEquals(SCALAR.partition(scalarLongs, first, length - 1), VECTOR.partition(longs, first, length - 1));
+                    assertArrayEquals(scalarLongs, longs);
+
+                    double[] doubles = random.doubles(length, -bound, bound).toArray();
+                    for (int i = 0; i < length; i += 5)
+                        doubles[i] = i % 2 == 0 ? -0.0 : 0.0;
+                    double[] scalarDoubles = doubles.clone();
+                    assertEquals(SCALAR.partition(scalarDoubles, first, length - 1),
+                            VECTOR.partition(doubles, first, length - 1));
+                    assertArrayEquals(scalarDoubles, doubles);
+                }
+            }
+        }
+    }
+}